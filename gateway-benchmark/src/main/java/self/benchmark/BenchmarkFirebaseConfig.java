@@ -0,0 +1,36 @@
+package self.benchmark;
+
+import com.google.auth.oauth2.AccessToken;
+import com.google.auth.oauth2.GoogleCredentials;
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.FirebaseOptions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * benchmark 프로필에서 gateway FirebaseConfig.firebaseApp() 대신 사용하는 FirebaseApp.
+ * Secret Manager 나 Google 서버에 접속하지 않는 가짜 자격 증명으로 초기화한다.
+ */
+@Configuration
+@Profile("benchmark")
+public class BenchmarkFirebaseConfig {
+
+    @Value("${firebase.project-id}")
+    private String projectId;
+
+    @Bean
+    public FirebaseApp firebaseApp() {
+        FirebaseOptions options = new FirebaseOptions.Builder()
+                .setCredentials(GoogleCredentials.create(new AccessToken("benchmark", null)))
+                .setProjectId(projectId)
+                .build();
+
+        if (FirebaseApp.getApps().isEmpty()) {
+            return FirebaseApp.initializeApp(options);
+        } else {
+            return FirebaseApp.getInstance();
+        }
+    }
+}
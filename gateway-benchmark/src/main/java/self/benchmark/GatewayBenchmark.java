@@ -0,0 +1,195 @@
+package self.benchmark;
+
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import self.Application;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 게이트웨이 부하 테스트 진입점.
+ *
+ * 1. 스텁 하위 서비스와 공개키 엔드포인트({@link StubBackends})를 띄운다
+ * 2. 게이트웨이를 benchmark 프로필로 같은 JVM 에서 띄운다 (라우트가 모두 스텁을 가리킴)
+ * 3. 워밍업 후 지정한 비율로 트래픽을 보내고 시나리오별 지연 분포, 처리량, 할당률, GC 를 출력한다
+ *
+ * 옵션 (모두 --이름=값 형식, 나머지 인자는 게이트웨이 설정으로 그대로 전달):
+ *   --bench.rate=500            초당 요청 수
+ *   --bench.duration=60         측정 시간 (초)
+ *   --bench.warmup=20           워밍업 시간 (초, 같은 비율로 보내고 결과는 버림)
+ *   --bench.mix=mixed           browse | terms | points | mixed
+ *   --bench.users=200           가상 로그인 사용자 수 (토큰 캐시 크기에 영향)
+ *   --bench.stub-latency-millis=5   스텁 응답 지연
+ *   --bench.stub-threads=64     스텁 서버 스레드 수
+ *   --bench.client-threads=8    부하 발생기 HttpClient 스레드 수
+ */
+public class GatewayBenchmark {
+
+    // 게이트웨이 쪽 작업으로 보고 할당량을 합산할 스레드 이름
+    private static final String[] GATEWAY_THREAD_PREFIXES = {"reactor-http", "firebase-auth", "parallel", "boundedElastic", "elastic"};
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = options(args);
+        int rate = Integer.parseInt(options.getOrDefault("bench.rate", "500"));
+        Duration duration = Duration.ofSeconds(Long.parseLong(options.getOrDefault("bench.duration", "60")));
+        Duration warmup = Duration.ofSeconds(Long.parseLong(options.getOrDefault("bench.warmup", "20")));
+        TrafficMix mix = TrafficMix.named(options.getOrDefault("bench.mix", "mixed"));
+        int users = Integer.parseInt(options.getOrDefault("bench.users", "200"));
+        long stubLatencyMillis = Long.parseLong(options.getOrDefault("bench.stub-latency-millis", "5"));
+        int stubThreads = Integer.parseInt(options.getOrDefault("bench.stub-threads", "64"));
+        int clientThreads = Integer.parseInt(options.getOrDefault("bench.client-threads", "8"));
+
+        TestTokens tokens = new TestTokens();
+        StubBackends stubs = new StubBackends(tokens, stubThreads, stubLatencyMillis);
+        stubs.start();
+        System.setProperty("bench.stub-port", String.valueOf(stubs.getPort()));
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(Application.class)
+                .profiles("benchmark")
+                .run(args);
+        String port = context.getEnvironment().getProperty("local.server.port");
+        String projectId = context.getEnvironment().getProperty("firebase.project-id");
+
+        List<TestTokens.User> issued = tokens.issue(projectId, users);
+        LoadDriver driver = new LoadDriver("http://127.0.0.1:" + port, issued, clientThreads, Duration.ofSeconds(10));
+        try {
+            awaitReady(driver);
+
+            System.out.printf("gateway-benchmark: mix=%s rate=%d/s warmup=%ds duration=%ds users=%d stub-latency=%dms%n",
+                    mix.getName(), rate, warmup.getSeconds(), duration.getSeconds(), users, stubLatencyMillis);
+            if (!warmup.isZero()) {
+                driver.run(mix, rate, warmup);
+            }
+
+            Map<Long, Long> allocatedBefore = gatewayThreadAllocations();
+            long[] gcBefore = gcTotals();
+            LoadDriver.Result result = driver.run(mix, rate, duration);
+            long[] gcAfter = gcTotals();
+            Map<Long, Long> allocatedAfter = gatewayThreadAllocations();
+
+            report(result, allocated(allocatedBefore, allocatedAfter), gcAfter[0] - gcBefore[0], gcAfter[1] - gcBefore[1]);
+        } finally {
+            driver.shutdown();
+            context.close();
+            stubs.stop();
+        }
+    }
+
+    /**
+     * 게이트웨이가 공개키를 받아 와서 인증 요청을 처리할 수 있을 때까지 기다린다.
+     */
+    private static void awaitReady(LoadDriver driver) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (System.nanoTime() < deadline) {
+            try {
+                if (driver.probe(TrafficMix.Scenario.TERM_GET) == 200) {
+                    return;
+                }
+            } catch (Exception e) {
+                // 아직 기동 중
+            }
+            TimeUnit.MILLISECONDS.sleep(200);
+        }
+        throw new IllegalStateException("Gateway did not become ready within 30 seconds");
+    }
+
+    private static void report(LoadDriver.Result result, long allocatedBytes, long gcCount, long gcMillis) {
+        double seconds = result.getElapsedNanos() / 1e9;
+        System.out.printf("%n%-14s %9s %9s %9s %9s %9s %9s %9s   %s%n",
+                "scenario", "count", "req/s", "p50(ms)", "p90(ms)", "p99(ms)", "p99.9(ms)", "max(ms)", "err/timeout 2xx 3xx 4xx 5xx");
+        for (TrafficMix.Scenario scenario : TrafficMix.Scenario.values()) {
+            Histogram histogram = result.getLatency(scenario);
+            if (histogram.getTotalCount() > 0) {
+                printRow(scenario.name(), histogram, seconds, result.getStatuses(scenario));
+            }
+        }
+        printRow("TOTAL", result.getOverall(), seconds, null);
+
+        long requests = result.getOverall().getTotalCount();
+        System.out.printf("%nsend phase %.1fs, total %.1fs%n", result.getSendFinishedNanos() / 1e9, seconds);
+        System.out.printf("gateway allocation: %.1f MB/s, %.1f KB/request%n",
+                allocatedBytes / seconds / (1024 * 1024), requests == 0 ? 0.0 : allocatedBytes / (double) requests / 1024);
+        System.out.printf("gc: %d collections, %d ms%n", gcCount, gcMillis);
+    }
+
+    private static void printRow(String name, Histogram histogram, double seconds, AtomicLongArray statuses) {
+        System.out.printf("%-14s %9d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f   %s%n",
+                name,
+                histogram.getTotalCount(),
+                histogram.getTotalCount() / seconds,
+                millis(histogram.getValueAtPercentile(50)),
+                millis(histogram.getValueAtPercentile(90)),
+                millis(histogram.getValueAtPercentile(99)),
+                millis(histogram.getValueAtPercentile(99.9)),
+                millis(histogram.getMaxValue()),
+                statuses == null ? "" : statuses.toString());
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    /**
+     * 측정 구간 동안 게이트웨이 스레드가 할당한 바이트 수. 구간 중에 새로 생긴 스레드는 0 부터 센다.
+     */
+    private static long allocated(Map<Long, Long> before, Map<Long, Long> after) {
+        long total = 0;
+        for (Map.Entry<Long, Long> entry : after.entrySet()) {
+            total += entry.getValue() - before.getOrDefault(entry.getKey(), 0L);
+        }
+        return total;
+    }
+
+    private static Map<Long, Long> gatewayThreadAllocations() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Map<Long, Long> allocations = new HashMap<>();
+        for (ThreadInfo info : threads.getThreadInfo(threads.getAllThreadIds())) {
+            if (info != null && isGatewayThread(info.getThreadName())) {
+                long bytes = threads.getThreadAllocatedBytes(info.getThreadId());
+                if (bytes >= 0) {
+                    allocations.put(info.getThreadId(), bytes);
+                }
+            }
+        }
+        return allocations;
+    }
+
+    private static boolean isGatewayThread(String name) {
+        for (String prefix : GATEWAY_THREAD_PREFIXES) {
+            if (name.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long[] gcTotals() {
+        long count = 0;
+        long millis = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(gc.getCollectionCount(), 0);
+            millis += Math.max(gc.getCollectionTime(), 0);
+        }
+        return new long[]{count, millis};
+    }
+
+    private static Map<String, String> options(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--bench.") && arg.contains("=")) {
+                int separator = arg.indexOf('=');
+                options.put(arg.substring(2, separator), arg.substring(separator + 1));
+            }
+        }
+        return options;
+    }
+}
@@ -0,0 +1,147 @@
+package self.benchmark;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 정해진 비율(초당 요청 수)로 요청을 보내는 open-loop 부하 발생기.
+ *
+ * 응답을 기다리지 않고 예정된 시각마다 요청을 보내며, 지연 시간은 실제 전송 시각이 아니라 "보냈어야 할 시각"부터 잰다.
+ * 게이트웨이가 느려져 발생기가 밀리더라도 그 대기 시간이 결과에 포함되므로 (coordinated omission 방지)
+ * 꼬리 지연(p99, p99.9)이 실제보다 좋게 나오지 않는다.
+ */
+public class LoadDriver {
+
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final HttpClient client;
+    private final ExecutorService clientExecutor;
+    private final String baseUrl;
+    private final List<TestTokens.User> users;
+    private final Duration requestTimeout;
+
+    public LoadDriver(String baseUrl, List<TestTokens.User> users, int clientThreads, Duration requestTimeout) {
+        this.baseUrl = baseUrl;
+        this.users = users;
+        this.requestTimeout = requestTimeout;
+        this.clientExecutor = Executors.newFixedThreadPool(clientThreads, runnable -> {
+            Thread thread = new Thread(runnable, "load-driver");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(clientExecutor)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    /**
+     * ratePerSecond 로 duration 동안 요청을 보내고, 마지막 요청의 응답까지 기다린 뒤 결과를 돌려준다.
+     */
+    public Result run(TrafficMix mix, int ratePerSecond, Duration duration) throws InterruptedException {
+        Result result = new Result();
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / ratePerSecond;
+        long total = duration.getSeconds() * ratePerSecond;
+        AtomicLong outstanding = new AtomicLong();
+
+        long start = System.nanoTime();
+        for (long i = 0; i < total; i++) {
+            long intended = start + i * intervalNanos;
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            TrafficMix.Scenario scenario = mix.next();
+            outstanding.incrementAndGet();
+            client.sendAsync(this.request(scenario), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        result.record(scenario, System.nanoTime() - intended, response == null ? 0 : response.statusCode());
+                        outstanding.decrementAndGet();
+                    });
+        }
+        result.sendFinishedNanos = System.nanoTime() - start;
+
+        long deadline = System.nanoTime() + requestTimeout.toNanos() + TimeUnit.SECONDS.toNanos(1);
+        while (outstanding.get() > 0 && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        result.elapsedNanos = System.nanoTime() - start;
+        return result;
+    }
+
+    /**
+     * 단일 요청을 동기로 보내고 상태 코드를 돌려준다. (준비 확인용)
+     */
+    public int probe(TrafficMix.Scenario scenario) throws Exception {
+        return client.send(this.request(scenario), HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    public void shutdown() {
+        clientExecutor.shutdownNow();
+    }
+
+    private HttpRequest request(TrafficMix.Scenario scenario) {
+        String body = scenario.body();
+        TestTokens.User user = scenario.isAuthenticated()
+                ? users.get(ThreadLocalRandom.current().nextInt(users.size()))
+                : null;
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + scenario.path(user == null ? null : user.getUid())))
+                .timeout(requestTimeout)
+                .method(scenario.getMethod(), body == null
+                        ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofString(body));
+        if (body != null) {
+            builder.header("Content-Type", "application/json");
+        }
+        if (user != null) {
+            builder.header("Authorization", "Bearer " + user.getIdToken());
+        }
+        return builder.build();
+    }
+
+    public static class Result {
+        private final Map<TrafficMix.Scenario, Histogram> latencies = new EnumMap<>(TrafficMix.Scenario.class);
+        private final Map<TrafficMix.Scenario, AtomicLongArray> statuses = new EnumMap<>(TrafficMix.Scenario.class);
+        private final Histogram overall = new ConcurrentHistogram(HIGHEST_TRACKABLE_NANOS, 3);
+        private long sendFinishedNanos;
+        private long elapsedNanos;
+
+        Result() {
+            for (TrafficMix.Scenario scenario : TrafficMix.Scenario.values()) {
+                latencies.put(scenario, new ConcurrentHistogram(HIGHEST_TRACKABLE_NANOS, 3));
+                // 인덱스: 0=연결 실패/타임아웃, 1=2xx, 2=3xx, 3=4xx, 4=5xx
+                statuses.put(scenario, new AtomicLongArray(5));
+            }
+        }
+
+        void record(TrafficMix.Scenario scenario, long latencyNanos, int status) {
+            long clamped = Math.min(Math.max(latencyNanos, 1), HIGHEST_TRACKABLE_NANOS);
+            latencies.get(scenario).recordValue(clamped);
+            overall.recordValue(clamped);
+            statuses.get(scenario).incrementAndGet(status < 200 ? 0 : Math.min(status / 100 - 1, 4));
+        }
+
+        public Histogram getLatency(TrafficMix.Scenario scenario) { return latencies.get(scenario); }
+        public AtomicLongArray getStatuses(TrafficMix.Scenario scenario) { return statuses.get(scenario); }
+        public Histogram getOverall() { return overall; }
+        public long getSendFinishedNanos() { return sendFinishedNanos; }
+        public long getElapsedNanos() { return elapsedNanos; }
+    }
+}
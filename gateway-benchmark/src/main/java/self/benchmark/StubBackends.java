@@ -0,0 +1,129 @@
+package self.benchmark;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * term, point, qna 서비스와 Google 공개키 엔드포인트를 흉내 내는 로컬 HTTP 서버.
+ * 게이트웨이 라우트가 모두 이 서버를 가리키므로 벤치마크 중에는 외부 네트워크를 쓰지 않는다.
+ *
+ * 응답 본문은 실제 서비스가 돌려주는 JSON 과 비슷한 크기/형태로 고정해 두고,
+ * latencyMillis 만큼 기다렸다가 응답해서 하위 서비스 처리 시간을 흉내 낸다.
+ */
+public class StubBackends {
+
+    private static final String TERM_JSON = "{\"id\":\"bench-term-1\",\"userId\":\"bench-user-0\",\"title\":\"서비스 이용약관\","
+            + "\"category\":\"이용약관\",\"productName\":\"벤치마크\",\"content\":\"" + repeat("제1조 (목적) 이 약관은 회사가 제공하는 서비스의 이용 조건을 정합니다. ", 40) + "\","
+            + "\"requirement\":\"\",\"version\":\"v1\",\"memo\":\"\",\"origin\":null,\"createdAt\":\"2024-01-01T00:00:00Z\","
+            + "\"modifiedAt\":\"2024-01-01T00:00:00Z\",\"expiresAt\":null,\"risk\":null,\"feedback\":null,\"client\":null,"
+            + "\"userCompany\":\"벤치마크\",\"langCode\":\"ko\",\"updateType\":null,\"termType\":\"ORIGINAL\"}";
+    private static final String TERM_LIST_JSON = "[" + repeat(TERM_JSON + ",", 19) + TERM_JSON + "]";
+    private static final String QNA_JSON = "{\"id\":\"bench-qna-1\",\"title\":\"약관 버전 비교는 어떻게 하나요?\",\"author\":\"bench-user-0\","
+            + "\"content\":\"" + repeat("질문 본문입니다. ", 30) + "\",\"createdAt\":\"2024-01-01T00:00:00Z\",\"views\":42,"
+            + "\"answers\":[{\"author\":\"admin\",\"content\":\"" + repeat("답변 본문입니다. ", 20) + "\"}]}";
+    private static final String QNA_LIST_JSON = "[" + repeat(QNA_JSON + ",", 9) + QNA_JSON + "]";
+    private static final String POINT_JSON = "{\"firebaseUid\":\"bench-user-0\",\"amount\":1000}";
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final long latencyMillis;
+
+    public StubBackends(TestTokens tokens, int threads, long latencyMillis) throws Exception {
+        this.latencyMillis = latencyMillis;
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "stub-backend");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        server.setExecutor(executor);
+
+        byte[] certificates = tokens.certificatesJson().getBytes(StandardCharsets.UTF_8);
+        server.createContext("/certs", exchange -> {
+            exchange.getResponseHeaders().set("Cache-Control", "public, max-age=3600");
+            respond(exchange, 200, certificates);
+        });
+        server.createContext("/qna", exchange -> this.handle(exchange, this.qna(exchange)));
+        server.createContext("/terms", exchange -> this.handle(exchange, this.terms(exchange)));
+        server.createContext("/api/points", exchange -> this.handle(exchange, POINT_JSON));
+        server.createContext("/points", exchange -> this.handle(exchange, POINT_JSON));
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private String qna(HttpExchange exchange) {
+        String path = exchange.getRequestURI().getPath();
+        return path.equals("/qna") || path.equals("/qna/") ? QNA_LIST_JSON : QNA_JSON;
+    }
+
+    private String terms(HttpExchange exchange) {
+        String method = exchange.getRequestMethod();
+        if (method.equals("DELETE")) {
+            return null;
+        }
+        String path = exchange.getRequestURI().getPath();
+        if (method.equals("GET") && (path.equals("/terms") || path.equals("/terms/"))) {
+            return TERM_LIST_JSON;
+        }
+        return TERM_JSON;
+    }
+
+    private void handle(HttpExchange exchange, String body) throws IOException {
+        // 요청 본문을 끝까지 읽어야 keep-alive 연결이 재사용된다
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] buffer = new byte[8192];
+            while (in.read(buffer) != -1) {
+                // 버림
+            }
+        }
+        if (latencyMillis > 0) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (body == null) {
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json;charset=UTF-8");
+        respond(exchange, 200, body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static String repeat(String value, int count) {
+        StringBuilder builder = new StringBuilder(value.length() * count);
+        for (int i = 0; i < count; i++) {
+            builder.append(value);
+        }
+        return builder.toString();
+    }
+}
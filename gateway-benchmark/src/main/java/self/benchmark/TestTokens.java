@@ -0,0 +1,109 @@
+package self.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 벤치마크용 서명 키와 Firebase ID 토큰 형식의 JWT 를 만든다.
+ * 인증서는 스텁 서버의 /certs 로 제공되어 게이트웨이의 FirebasePublicKeys 가 실제와 같은 경로로 받아 간다.
+ */
+public class TestTokens {
+
+    public static final String KEY_ID = "benchmark-key";
+
+    private static final Base64.Encoder BASE64_URL = Base64.getUrlEncoder().withoutPadding();
+
+    private final KeyPair keyPair;
+    private final X509Certificate certificate;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public TestTokens() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        this.keyPair = generator.generateKeyPair();
+
+        long now = System.currentTimeMillis();
+        X500Name name = new X500Name("CN=gateway-benchmark");
+        JcaX509v3CertificateBuilder builder = new JcaX509v3CertificateBuilder(name, BigInteger.ONE,
+                new Date(now - TimeUnit.HOURS.toMillis(1)), new Date(now + TimeUnit.DAYS.toMillis(1)),
+                name, keyPair.getPublic());
+        this.certificate = new JcaX509CertificateConverter()
+                .getCertificate(builder.build(new JcaContentSignerBuilder("SHA256withRSA").build(keyPair.getPrivate())));
+    }
+
+    /**
+     * Google securetoken 엔드포인트와 같은 형식의 { kid: PEM 인증서 } JSON.
+     */
+    public String certificatesJson() throws Exception {
+        String pem = "-----BEGIN CERTIFICATE-----\n"
+                + Base64.getMimeEncoder(64, "\n".getBytes(StandardCharsets.US_ASCII)).encodeToString(certificate.getEncoded())
+                + "\n-----END CERTIFICATE-----\n";
+        return objectMapper.writeValueAsString(Collections.singletonMap(KEY_ID, pem));
+    }
+
+    /**
+     * 가상 사용자 users 명의 uid 와 Bearer 토큰 (1시간 유효).
+     */
+    public List<User> issue(String projectId, int users) throws Exception {
+        List<User> issued = new ArrayList<>();
+        for (int i = 0; i < users; i++) {
+            String uid = "bench-user-" + i;
+            issued.add(new User(uid, sign(projectId, uid)));
+        }
+        return issued;
+    }
+
+    private String sign(String projectId, String uid) throws Exception {
+        long now = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+        Map<String, Object> header = new LinkedHashMap<>();
+        header.put("alg", "RS256");
+        header.put("kid", KEY_ID);
+        header.put("typ", "JWT");
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put("iss", "https://securetoken.google.com/" + projectId);
+        claims.put("aud", projectId);
+        claims.put("auth_time", now - 60);
+        claims.put("user_id", uid);
+        claims.put("sub", uid);
+        claims.put("iat", now - 60);
+        claims.put("exp", now + 3600);
+
+        String signingInput = BASE64_URL.encodeToString(objectMapper.writeValueAsBytes(header))
+                + "." + BASE64_URL.encodeToString(objectMapper.writeValueAsBytes(claims));
+        Signature signature = Signature.getInstance("SHA256withRSA");
+        signature.initSign(keyPair.getPrivate());
+        signature.update(signingInput.getBytes(StandardCharsets.US_ASCII));
+        return signingInput + "." + BASE64_URL.encodeToString(signature.sign());
+    }
+
+    public static class User {
+        private final String uid;
+        private final String idToken;
+
+        User(String uid, String idToken) {
+            this.uid = uid;
+            this.idToken = idToken;
+        }
+
+        public String getUid() { return uid; }
+        public String getIdToken() { return idToken; }
+    }
+}
@@ -0,0 +1,118 @@
+package self.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 벤치마크 요청 종류와 그 비율.
+ *
+ * - browse: 비로그인 Q&A 게시판 조회만 (응답 캐시, 요청 병합 경로)
+ * - terms: 로그인 사용자의 약관 CRUD (토큰 검증, 내부 신원 서명 경로)
+ * - points: 포인트 충전만
+ * - mixed: 실제 서비스와 비슷한 비율로 섞은 것 (기본값)
+ */
+public class TrafficMix {
+
+    public enum Scenario {
+        QNA_LIST("GET", "/qna", false),
+        QNA_DETAIL("GET", "/qna/bench-qna-%d", false),
+        TERM_LIST("GET", "/terms", true),
+        TERM_GET("GET", "/terms/bench-term-%d", true),
+        TERM_CREATE("POST", "/terms", true),
+        TERM_UPDATE("PUT", "/terms/bench-term-%d", true),
+        TERM_DELETE("DELETE", "/terms/bench-term-%d", true),
+        POINT_CHARGE("POST", "/api/points/{uid}/charge", true);
+
+        private final String method;
+        private final String pathTemplate;
+        private final boolean authenticated;
+
+        Scenario(String method, String pathTemplate, boolean authenticated) {
+            this.method = method;
+            this.pathTemplate = pathTemplate;
+            this.authenticated = authenticated;
+        }
+
+        public String getMethod() { return method; }
+        public boolean isAuthenticated() { return authenticated; }
+
+        /**
+         * 상세 조회 대상은 작은 범위(0~49)에서 골라 인기 글에 요청이 몰리는 상황을 만든다.
+         * {uid} 는 요청을 보내는 사용자의 uid 로 바꾼다 (비로그인 요청이면 null).
+         */
+        public String path(String uid) {
+            String path = uid == null ? pathTemplate : pathTemplate.replace("{uid}", uid);
+            return path.contains("%d")
+                    ? String.format(path, ThreadLocalRandom.current().nextInt(50))
+                    : path;
+        }
+
+        public String body() {
+            switch (this) {
+                case TERM_CREATE:
+                case TERM_UPDATE:
+                    return "{\"title\":\"서비스 이용약관\",\"category\":\"이용약관\",\"productName\":\"벤치마크\","
+                            + "\"content\":\"제1조 (목적) 이 약관은 회사가 제공하는 서비스의 이용 조건을 정합니다.\",\"memo\":\"\"}";
+                case POINT_CHARGE:
+                    return "{\"amount\":1000}";
+                default:
+                    return null;
+            }
+        }
+    }
+
+    private final String name;
+    private final Scenario[] table;
+
+    private TrafficMix(String name, Map<Scenario, Integer> weights) {
+        this.name = name;
+        List<Scenario> entries = new ArrayList<>();
+        weights.forEach((scenario, weight) -> entries.addAll(Collections.nCopies(weight, scenario)));
+        this.table = entries.toArray(new Scenario[0]);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Scenario next() {
+        return table[ThreadLocalRandom.current().nextInt(table.length)];
+    }
+
+    public static TrafficMix named(String name) {
+        Map<Scenario, Integer> weights = new EnumMap<>(Scenario.class);
+        switch (name) {
+            case "browse":
+                weights.put(Scenario.QNA_LIST, 30);
+                weights.put(Scenario.QNA_DETAIL, 70);
+                break;
+            case "terms":
+                weights.put(Scenario.TERM_LIST, 30);
+                weights.put(Scenario.TERM_GET, 40);
+                weights.put(Scenario.TERM_CREATE, 10);
+                weights.put(Scenario.TERM_UPDATE, 15);
+                weights.put(Scenario.TERM_DELETE, 5);
+                break;
+            case "points":
+                weights.put(Scenario.POINT_CHARGE, 100);
+                break;
+            case "mixed":
+                weights.put(Scenario.QNA_LIST, 15);
+                weights.put(Scenario.QNA_DETAIL, 35);
+                weights.put(Scenario.TERM_LIST, 12);
+                weights.put(Scenario.TERM_GET, 20);
+                weights.put(Scenario.TERM_CREATE, 5);
+                weights.put(Scenario.TERM_UPDATE, 6);
+                weights.put(Scenario.TERM_DELETE, 2);
+                weights.put(Scenario.POINT_CHARGE, 5);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown traffic mix: " + name + " (browse, terms, points, mixed)");
+        }
+        return new TrafficMix(name, weights);
+    }
+}
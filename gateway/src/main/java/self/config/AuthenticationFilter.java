@@ -1,7 +1,5 @@
 package self.config;
 
-import com.google.firebase.auth.FirebaseAuth;
-import com.google.firebase.auth.FirebaseToken;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
@@ -13,52 +11,94 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
-import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 
 @Component
 public class AuthenticationFilter implements GlobalFilter, Ordered {
 
     @Autowired
-    private FirebaseAuth firebaseAuth;
+    private FirebaseTokenCache firebaseTokenCache;
+
+    @Autowired
+    private InternalIdentitySigner internalIdentitySigner;
+
+    @Autowired
+    private GatewayMetrics gatewayMetrics;
+
+    @Autowired
+    private RoutePolicy routePolicy;
 
     @Override
-    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+    public Mono<Void> filter(ServerWebExchange originalExchange, GatewayFilterChain chain) {
+        // 클라이언트가 직접 보낸 내부 신원 헤더는 신뢰하지 않으므로 항상 제거
+        ServerWebExchange exchange = this.stripIdentityHeaders(originalExchange);
         ServerHttpRequest request = exchange.getRequest();
         String authToken = this.getAuthToken(request);
 
-        // 비로그인 사용자의 qna GET 요청은 허용
-        if (authToken == null && request.getMethod().matches("GET") && request.getURI().getPath().startsWith("/qna")) {
-            return chain.filter(exchange);
-        }
+        // 경로별 정책은 route-policy 설정에서 미리 컴파일된 RoutePolicy 로 결정
+        RoutePolicy.Access access = routePolicy.resolve(request.getMethod(), request.getURI().getRawPath());
 
-        // 인증 엔드포인트는 허용
-        List<String> path = List.of(request.getURI().getPath().split("/"));
-        if (path.contains("auth")) {
+        // 인증 엔드포인트 등 공개 경로는 토큰을 검증하지 않고 허용
+        if (access == RoutePolicy.Access.PUBLIC) {
             return chain.filter(exchange);
         }
 
-        // 위 조건에 해당하지 않는데 토큰이 없으면 거부
+        // 비로그인 허용 경로(qna GET 등)는 토큰이 없으면 그대로 통과
         if (authToken == null) {
+            if (access == RoutePolicy.Access.ANONYMOUS) {
+                return chain.filter(exchange);
+            }
             return this.onError(exchange, "Authorization header is missing or invalid");
         }
 
-        // 토큰이 있으면 검증하고 uid를 헤더에 추가
-        try {
-            FirebaseToken decodedToken = firebaseAuth.verifyIdToken(authToken);
-            String uid = decodedToken.getUid();
+        // 토큰이 있으면 검증하고 uid를 헤더에 추가 (검증은 이벤트 루프를 블로킹하지 않음)
+        long verifyStart = System.nanoTime();
+        return firebaseTokenCache.verify(authToken)
+                .doOnSuccess(uid -> gatewayMetrics.recordAuth(true, System.nanoTime() - verifyStart))
+                .doOnError(e -> gatewayMetrics.recordAuth(false, System.nanoTime() - verifyStart))
+                .map(Optional::of)
+                .onErrorResume(e -> e instanceof RejectedExecutionException
+                        ? this.onError(exchange, HttpStatus.SERVICE_UNAVAILABLE).then(Mono.<Optional<String>>empty())
+                        : Mono.just(Optional.<String>empty()))
+                .flatMap(uid -> uid.isPresent()
+                        ? chain.filter(withAuthenticatedUser(exchange, uid.get()))
+                        : this.onError(exchange, "Invalid authentication token"));
+    }
 
-            ServerHttpRequest modifiedRequest = request.mutate()
-                    .headers(httpHeaders -> httpHeaders.set("X-Authenticated-User-Uid", uid))
-                    .build();
+    private ServerWebExchange withAuthenticatedUser(ServerWebExchange exchange, String uid) {
+        String identity = internalIdentitySigner.sign(uid);
+        ServerHttpRequest modifiedRequest = exchange.getRequest().mutate()
+                .headers(httpHeaders -> {
+                    httpHeaders.set(InternalIdentitySigner.UID_HEADER, uid);
+                    if (identity != null) {
+                        httpHeaders.set(InternalIdentitySigner.HEADER, identity);
+                    }
+                })
+                .build();
+        return exchange.mutate().request(modifiedRequest).build();
+    }
 
-            return chain.filter(exchange.mutate().request(modifiedRequest).build());
-        } catch (Exception e) {
-            return this.onError(exchange, "Invalid authentication token");
+    private ServerWebExchange stripIdentityHeaders(ServerWebExchange exchange) {
+        HttpHeaders headers = exchange.getRequest().getHeaders();
+        if (!headers.containsKey(InternalIdentitySigner.UID_HEADER) && !headers.containsKey(InternalIdentitySigner.HEADER)) {
+            return exchange;
         }
+        ServerHttpRequest strippedRequest = exchange.getRequest().mutate()
+                .headers(httpHeaders -> {
+                    httpHeaders.remove(InternalIdentitySigner.UID_HEADER);
+                    httpHeaders.remove(InternalIdentitySigner.HEADER);
+                })
+                .build();
+        return exchange.mutate().request(strippedRequest).build();
     }
 
     private Mono<Void> onError(ServerWebExchange exchange, String err) {
-        exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
+        return this.onError(exchange, HttpStatus.UNAUTHORIZED);
+    }
+
+    private Mono<Void> onError(ServerWebExchange exchange, HttpStatus status) {
+        exchange.getResponse().setStatusCode(status);
         return exchange.getResponse().setComplete();
     }
 
@@ -72,6 +112,8 @@ public class AuthenticationFilter implements GlobalFilter, Ordered {
 
     @Override
     public int getOrder() {
-        return -1; // Run before other filters
+        // 응답을 나눠 주거나 캐시하는 필터(RequestCoalescingFilter, ResponseCacheFilter)보다 먼저 실행해야
+        // 합쳐진 요청도 각자 토큰 검증을 거치고, 인증에 실패한 요청이 캐시에 닿지 않는다
+        return -10;
     }
 }
@@ -0,0 +1,116 @@
+package self.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 하위 서비스(라우트 id)별 서킷 브레이커와 벌크헤드.
+ * ai 나 point 서비스가 느려져도 그 라우트의 요청만 빠르게 실패시키고, 게이트웨이 연결이 쌓여 /qna 등 다른 라우트까지 느려지지 않게 한다.
+ *
+ * - 벌크헤드: 라우트별 동시 요청 수 제한 (대기하지 않고 바로 거부)
+ * - 서킷 브레이커: 오류/5xx 비율, 느린 호출 비율 기준 (RouteCircuitBreaker)
+ * - 거부 시: 503 + Retry-After + JSON 본문
+ * - 지표: gateway.circuitbreaker.state{routeId} (0=CLOSED, 1=OPEN, 2=HALF_OPEN),
+ *         gateway.circuitbreaker.rejected{routeId, reason=open|bulkhead}, gateway.bulkhead.available{routeId}
+ */
+@Component
+public class CircuitBreakerFilter implements GlobalFilter, Ordered {
+
+    private final CircuitBreakerProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<String, RouteGuard> guards = new ConcurrentHashMap<>();
+
+    public CircuitBreakerFilter(CircuitBreakerProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        if (!properties.isEnabled() || route == null) {
+            return chain.filter(exchange);
+        }
+        RouteGuard guard = guards.computeIfAbsent(route.getId(), this::newGuard);
+
+        if (!guard.bulkhead.tryAcquire()) {
+            meterRegistry.counter("gateway.circuitbreaker.rejected", "routeId", route.getId(), "reason", "bulkhead").increment();
+            return this.reject(exchange, route.getId(), "Too many concurrent requests", 1);
+        }
+        long start = System.nanoTime();
+        if (!guard.breaker.tryAcquirePermission(start)) {
+            guard.bulkhead.release();
+            meterRegistry.counter("gateway.circuitbreaker.rejected", "routeId", route.getId(), "reason", "open").increment();
+            long retryAfterSeconds = TimeUnit.NANOSECONDS.toSeconds(guard.breaker.remainingOpenNanos(start)) + 1;
+            return this.reject(exchange, route.getId(), "Service temporarily unavailable", retryAfterSeconds);
+        }
+
+        return chain.filter(exchange).doFinally(signal -> {
+            guard.bulkhead.release();
+            long now = System.nanoTime();
+            if (signal == SignalType.CANCEL) {
+                guard.breaker.onIgnored();
+            } else {
+                HttpStatus status = exchange.getResponse().getStatusCode();
+                boolean failed = signal == SignalType.ON_ERROR || (status != null && status.is5xxServerError());
+                guard.breaker.onResult(now - start, failed, now);
+            }
+        });
+    }
+
+    private Mono<Void> reject(ServerWebExchange exchange, String routeId, String message, long retryAfterSeconds) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+        response.getHeaders().set("Retry-After", String.valueOf(retryAfterSeconds));
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        byte[] body = ("{\"error\":\"" + message + "\",\"routeId\":\"" + routeId + "\"}").getBytes(StandardCharsets.UTF_8);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+    }
+
+    private RouteGuard newGuard(String routeId) {
+        CircuitBreakerProperties.RouteSettings settings = properties.forRoute(routeId);
+        RouteGuard guard = new RouteGuard(new RouteCircuitBreaker(settings), new Semaphore(settings.getMaxConcurrentCalls()));
+        Gauge.builder("gateway.circuitbreaker.state", guard.breaker, breaker -> breaker.getState().ordinal())
+                .tag("routeId", routeId)
+                .register(meterRegistry);
+        Gauge.builder("gateway.bulkhead.available", guard.bulkhead, Semaphore::availablePermits)
+                .tag("routeId", routeId)
+                .register(meterRegistry);
+        return guard;
+    }
+
+    @Override
+    public int getOrder() {
+        // 인증(-10), 요청 제한(-9) 을 통과한 요청만 하위 서비스 자원을 차지하도록.
+        // 요청 병합(-3)보다 먼저 실행해 합쳐진 요청도 벌크헤드에 세어지게 한다
+        return -8;
+    }
+
+    private static class RouteGuard {
+        private final RouteCircuitBreaker breaker;
+        private final Semaphore bulkhead;
+
+        RouteGuard(RouteCircuitBreaker breaker, Semaphore bulkhead) {
+            this.breaker = breaker;
+            this.bulkhead = bulkhead;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package self.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 라우트 id 별 서킷 브레이커/벌크헤드 설정 (application.yml 의 circuit-breaker.*)
+ * routes 에 없는 라우트와 지정하지 않은 값은 아래 기본값을 사용한다.
+ */
+@Component
+@ConfigurationProperties(prefix = "circuit-breaker")
+public class CircuitBreakerProperties {
+
+    private boolean enabled = true;
+
+    private Map<String, RouteSettings> routes = new HashMap<>();
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    public Map<String, RouteSettings> getRoutes() { return routes; }
+    public void setRoutes(Map<String, RouteSettings> routes) { this.routes = routes; }
+
+    public RouteSettings forRoute(String routeId) {
+        RouteSettings settings = routes.get(routeId);
+        return settings != null ? settings : new RouteSettings();
+    }
+
+    public static class RouteSettings {
+
+        // 최근 호출 중 실패(오류, 5xx) 비율이 이 값(%) 이상이면 차단
+        private float failureRateThreshold = 50;
+
+        // 최근 호출 중 느린 호출 비율이 이 값(%) 이상이면 차단
+        private float slowCallRateThreshold = 100;
+
+        // 이 시간 이상 걸린 호출을 느린 호출로 본다
+        private long slowCallDurationMillis = 10000;
+
+        // 실패율을 계산할 최근 호출 수
+        private int slidingWindowSize = 50;
+
+        // 최소 이만큼 호출된 뒤에만 실패율로 판단
+        private int minimumNumberOfCalls = 20;
+
+        // 차단(OPEN) 후 시험 호출(HALF_OPEN)을 허용하기까지 기다리는 시간
+        private long waitDurationInOpenMillis = 10000;
+
+        // HALF_OPEN 에서 허용하는 시험 호출 수
+        private int permittedCallsInHalfOpen = 5;
+
+        // 벌크헤드: 이 라우트로 동시에 전달할 수 있는 최대 요청 수
+        private int maxConcurrentCalls = 200;
+
+        public float getFailureRateThreshold() { return failureRateThreshold; }
+        public void setFailureRateThreshold(float failureRateThreshold) { this.failureRateThreshold = failureRateThreshold; }
+        public float getSlowCallRateThreshold() { return slowCallRateThreshold; }
+        public void setSlowCallRateThreshold(float slowCallRateThreshold) { this.slowCallRateThreshold = slowCallRateThreshold; }
+        public long getSlowCallDurationMillis() { return slowCallDurationMillis; }
+        public void setSlowCallDurationMillis(long slowCallDurationMillis) { this.slowCallDurationMillis = slowCallDurationMillis; }
+        public int getSlidingWindowSize() { return slidingWindowSize; }
+        public void setSlidingWindowSize(int slidingWindowSize) { this.slidingWindowSize = slidingWindowSize; }
+        public int getMinimumNumberOfCalls() { return minimumNumberOfCalls; }
+        public void setMinimumNumberOfCalls(int minimumNumberOfCalls) { this.minimumNumberOfCalls = minimumNumberOfCalls; }
+        public long getWaitDurationInOpenMillis() { return waitDurationInOpenMillis; }
+        public void setWaitDurationInOpenMillis(long waitDurationInOpenMillis) { this.waitDurationInOpenMillis = waitDurationInOpenMillis; }
+        public int getPermittedCallsInHalfOpen() { return permittedCallsInHalfOpen; }
+        public void setPermittedCallsInHalfOpen(int permittedCallsInHalfOpen) { this.permittedCallsInHalfOpen = permittedCallsInHalfOpen; }
+        public int getMaxConcurrentCalls() { return maxConcurrentCalls; }
+        public void setMaxConcurrentCalls(int maxConcurrentCalls) { this.maxConcurrentCalls = maxConcurrentCalls; }
+    }
+}
@@ -9,11 +9,18 @@ import com.google.firebase.auth.FirebaseAuth;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Configuration
 public class FirebaseConfig {
@@ -27,7 +34,9 @@ public class FirebaseConfig {
     @Value("${firebase.database-url}")
     private String databaseUrl;
 
+    // benchmark 프로필(gateway-benchmark)에서는 Secret Manager 대신 오프라인 FirebaseApp 을 사용
     @Bean
+    @Profile("!benchmark")
     public FirebaseApp firebaseApp() throws IOException {
         try (SecretManagerServiceClient client = SecretManagerServiceClient.create()) {
             SecretVersionName secretVersionName = SecretVersionName.of(projectId, secretId, "latest");
@@ -52,4 +61,25 @@ public class FirebaseConfig {
     public FirebaseAuth firebaseAuth(FirebaseApp firebaseApp) {
         return FirebaseAuth.getInstance(firebaseApp);
     }
-}
\ No newline at end of file
+
+    /**
+     * Firebase 서버 호출(getUser, SDK 검증 등) 처럼 남아 있는 블로킹 작업 전용 스케줄러.
+     * 스레드 수와 대기열 크기가 제한되어 있어 Firebase 가 느려져도 이벤트 루프나 게이트웨이 전체가 잠기지 않는다.
+     * 대기열이 가득 차면 RejectedExecutionException 으로 즉시 실패한다.
+     */
+    @Bean(destroyMethod = "dispose")
+    public Scheduler firebaseAuthScheduler(@Value("${auth.blocking-pool.size:8}") int poolSize,
+                                           @Value("${auth.blocking-pool.queue-capacity:256}") int queueCapacity) {
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "firebase-auth-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return Schedulers.fromExecutorService(executor);
+    }
+}
@@ -0,0 +1,129 @@
+package self.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Firebase ID 토큰(JWT)을 게이트웨이 프로세스 안에서 검증한다.
+ * 네트워크 호출이 없으므로 이벤트 루프에서 바로 실행해도 된다. 공개키는 {@link FirebasePublicKeys} 가 미리 받아 둔다.
+ *
+ * 검증 항목은 Firebase Admin SDK 의 verifyIdToken 과 같다:
+ * alg=RS256, kid 서명, aud=프로젝트 ID, iss=https://securetoken.google.com/{프로젝트 ID}, exp/iat/auth_time, sub.
+ */
+@Component
+public class FirebaseIdTokenVerifier {
+
+    private static final Base64.Decoder BASE64_URL = Base64.getUrlDecoder();
+
+    private final FirebasePublicKeys publicKeys;
+    private final String projectId;
+    private final String issuer;
+    private final long clockSkewSeconds;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public FirebaseIdTokenVerifier(FirebasePublicKeys publicKeys,
+                                   @Value("${firebase.project-id}") String projectId,
+                                   @Value("${auth.token-verifier.clock-skew-seconds:5}") long clockSkewSeconds) {
+        this.publicKeys = publicKeys;
+        this.projectId = projectId;
+        this.issuer = "https://securetoken.google.com/" + projectId;
+        this.clockSkewSeconds = clockSkewSeconds;
+    }
+
+    public VerifiedToken verify(String idToken) throws InvalidTokenException {
+        String[] parts = idToken.split("\\.");
+        if (parts.length != 3) {
+            throw new InvalidTokenException("ID token is not a JWT");
+        }
+
+        Map<?, ?> header = decodeJson(parts[0]);
+        if (!"RS256".equals(header.get("alg"))) {
+            throw new InvalidTokenException("ID token has incorrect algorithm");
+        }
+        Object kid = header.get("kid");
+        if (!(kid instanceof String)) {
+            throw new InvalidTokenException("ID token has no kid header");
+        }
+        PublicKey key = publicKeys.get((String) kid);
+        if (key == null) {
+            throw new SigningKeyUnavailableException((String) kid);
+        }
+        verifySignature(key, parts);
+
+        Map<?, ?> claims = decodeJson(parts[1]);
+        if (!projectId.equals(claims.get("aud"))) {
+            throw new InvalidTokenException("ID token has incorrect audience");
+        }
+        if (!issuer.equals(claims.get("iss"))) {
+            throw new InvalidTokenException("ID token has incorrect issuer");
+        }
+        Object sub = claims.get("sub");
+        if (!(sub instanceof String) || ((String) sub).isEmpty() || ((String) sub).length() > 128) {
+            throw new InvalidTokenException("ID token has invalid subject");
+        }
+
+        long now = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+        long exp = seconds(claims, "exp");
+        long iat = seconds(claims, "iat");
+        long authTime = seconds(claims, "auth_time");
+        if (exp + clockSkewSeconds <= now) {
+            throw new InvalidTokenException("ID token has expired");
+        }
+        if (iat - clockSkewSeconds > now || authTime - clockSkewSeconds > now) {
+            throw new InvalidTokenException("ID token is issued in the future");
+        }
+
+        return new VerifiedToken((String) sub, TimeUnit.SECONDS.toMillis(authTime), TimeUnit.SECONDS.toMillis(exp));
+    }
+
+    private void verifySignature(PublicKey key, String[] parts) throws InvalidTokenException {
+        try {
+            Signature signature = Signature.getInstance("SHA256withRSA");
+            signature.initVerify(key);
+            signature.update(parts[0].getBytes(StandardCharsets.US_ASCII));
+            signature.update((byte) '.');
+            signature.update(parts[1].getBytes(StandardCharsets.US_ASCII));
+            if (!signature.verify(BASE64_URL.decode(parts[2]))) {
+                throw new InvalidTokenException("ID token has invalid signature");
+            }
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            throw new InvalidTokenException("ID token has invalid signature", e);
+        }
+    }
+
+    private Map<?, ?> decodeJson(String part) throws InvalidTokenException {
+        try {
+            return objectMapper.readValue(BASE64_URL.decode(part), Map.class);
+        } catch (IOException | IllegalArgumentException e) {
+            throw new InvalidTokenException("ID token is malformed", e);
+        }
+    }
+
+    private long seconds(Map<?, ?> claims, String name) throws InvalidTokenException {
+        Object value = claims.get(name);
+        if (!(value instanceof Number)) {
+            throw new InvalidTokenException("ID token has no " + name + " claim");
+        }
+        return ((Number) value).longValue();
+    }
+
+    /**
+     * 서명 키를 아직 받지 못했거나 모르는 kid 인 경우. 다른 검증 실패와 같이 401 로 거절되고,
+     * FirebasePublicKeys 가 키를 다시 받아 오면 같은 토큰으로 재시도할 수 있다.
+     */
+    public static class SigningKeyUnavailableException extends InvalidTokenException {
+        public SigningKeyUnavailableException(String kid) {
+            super("No public key for kid " + kid);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package self.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.PublicKey;
+import java.security.cert.CertificateFactory;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Firebase ID 토큰 서명용 Google 공개키를 백그라운드 스레드에서 미리 받아 두는 컴포넌트.
+ * 요청 처리 스레드(Netty 이벤트 루프)는 키를 가져오느라 기다리지 않고, 메모리에 있는 키만 조회한다.
+ *
+ * 응답의 Cache-Control max-age 보다 조금 일찍 갱신하므로 키 교체(rotation) 시점에도 새 키가 이미 준비되어 있다.
+ */
+@Component
+public class FirebasePublicKeys {
+
+    private static final Logger log = LoggerFactory.getLogger(FirebasePublicKeys.class);
+
+    private static final Pattern MAX_AGE = Pattern.compile("max-age=(\\d+)");
+
+    private final String certificatesUrl;
+    private final long refreshMarginSeconds;
+    private final long retrySeconds;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ScheduledExecutorService refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "firebase-public-keys");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicLong lastFetchMillis = new AtomicLong();
+
+    private volatile Map<String, PublicKey> keys = Collections.emptyMap();
+
+    public FirebasePublicKeys(
+            @Value("${auth.public-keys.url:https://www.googleapis.com/robot/v1/metadata/x509/securetoken@system.gserviceaccount.com}") String certificatesUrl,
+            @Value("${auth.public-keys.refresh-margin-seconds:300}") long refreshMarginSeconds,
+            @Value("${auth.public-keys.retry-seconds:30}") long retrySeconds) {
+        this.certificatesUrl = certificatesUrl;
+        this.refreshMarginSeconds = refreshMarginSeconds;
+        this.retrySeconds = retrySeconds;
+    }
+
+    @PostConstruct
+    public void start() {
+        refresher.execute(this::scheduledRefresh);
+    }
+
+    @PreDestroy
+    public void stop() {
+        refresher.shutdownNow();
+    }
+
+    /**
+     * kid 에 해당하는 공개키. 아직 받지 못했거나 모르는 kid 이면 null 을 반환하고 백그라운드 갱신을 요청한다.
+     */
+    public PublicKey get(String kid) {
+        PublicKey key = keys.get(kid);
+        if (key == null) {
+            requestRefresh();
+        }
+        return key;
+    }
+
+    private void requestRefresh() {
+        // 모르는 kid 로 요청이 몰려도 retry-seconds 에 한 번만 받아 온다
+        long now = System.currentTimeMillis();
+        long last = lastFetchMillis.get();
+        if (now - last >= TimeUnit.SECONDS.toMillis(retrySeconds) && lastFetchMillis.compareAndSet(last, now)
+                && !refresher.isShutdown()) {
+            refresher.execute(this::fetch);
+        }
+    }
+
+    private void scheduledRefresh() {
+        long maxAgeSeconds = fetch();
+        long nextRefreshSeconds = Math.max(retrySeconds, maxAgeSeconds - refreshMarginSeconds);
+        if (!refresher.isShutdown()) {
+            refresher.schedule(this::scheduledRefresh, nextRefreshSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * 공개키를 받아 교체하고 응답의 max-age(초)를 반환한다. 실패하면 기존 키를 유지하고 0을 반환한다.
+     */
+    private long fetch() {
+        lastFetchMillis.set(System.currentTimeMillis());
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL(certificatesUrl).openConnection();
+            connection.setConnectTimeout(5000);
+            connection.setReadTimeout(5000);
+            Map<String, PublicKey> fetched = new HashMap<>();
+            try (InputStream body = connection.getInputStream()) {
+                Map<?, ?> certificates = objectMapper.readValue(body, Map.class);
+                CertificateFactory factory = CertificateFactory.getInstance("X.509");
+                for (Map.Entry<?, ?> entry : certificates.entrySet()) {
+                    byte[] pem = String.valueOf(entry.getValue()).getBytes(StandardCharsets.US_ASCII);
+                    PublicKey key = factory.generateCertificate(new ByteArrayInputStream(pem)).getPublicKey();
+                    fetched.put(String.valueOf(entry.getKey()), key);
+                }
+            }
+            keys = Collections.unmodifiableMap(fetched);
+            return maxAge(connection.getHeaderField("Cache-Control"));
+        } catch (Exception e) {
+            // 기존 키는 그대로 쓰고 retry-seconds 뒤에 다시 시도한다
+            log.warn("Failed to refresh Firebase public keys from {}", certificatesUrl, e);
+            return 0;
+        }
+    }
+
+    private long maxAge(String cacheControl) {
+        if (cacheControl != null) {
+            Matcher matcher = MAX_AGE.matcher(cacheControl);
+            if (matcher.find()) {
+                return Long.parseLong(matcher.group(1));
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,147 @@
+package self.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.UserRecord;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 검증이 끝난 Firebase ID 토큰을 메모리에 보관하는 캐시.
+ * 같은 세션이 같은 토큰을 반복해서 보내므로, 서명 검증과 JSON 파싱은 토큰당 한 번만 수행한다.
+ *
+ * - 키: 토큰 원문이 아닌 SHA-256 해시 (원문 토큰을 메모리에 오래 두지 않기 위함)
+ * - 만료: 토큰 자체의 exp 시각, 단 revalidate-after 보다 오래 두지 않음 (폐기된 토큰 재검증 주기)
+ * - 지표: cache.gets{cache=firebaseTokens,result=hit|miss}, cache.evictions, cache.size
+ *
+ * 캐시 미스 시 서명/클레임 검증은 {@link FirebaseIdTokenVerifier} 로 이벤트 루프에서 바로 처리한다.
+ * 폐기 여부 확인(getUser)은 캐시 미스마다 블로킹 호출이 생기므로 기본으로 끄고(check-revoked: false),
+ * 켰을 때만 firebaseAuthScheduler 로 넘긴다. 끈 상태에서는 폐기된 토큰도 exp(최대 1시간)까지 통과한다.
+ * 서명 키를 모르는 토큰은 SDK 로 넘기지 않고 바로 거절한다 (키 갱신은 FirebasePublicKeys 가 백그라운드에서 한다).
+ */
+@Component
+public class FirebaseTokenCache {
+
+    private final FirebaseAuth firebaseAuth;
+    private final FirebaseIdTokenVerifier tokenVerifier;
+    private final Scheduler firebaseAuthScheduler;
+    private final boolean checkRevoked;
+    private final long revalidateAfterNanos;
+    private final Cache<String, VerifiedToken> cache;
+
+    public FirebaseTokenCache(FirebaseAuth firebaseAuth,
+                              FirebaseIdTokenVerifier tokenVerifier,
+                              @Qualifier("firebaseAuthScheduler") Scheduler firebaseAuthScheduler,
+                              MeterRegistry meterRegistry,
+                              @Value("${auth.token-cache.maximum-size:10000}") long maximumSize,
+                              @Value("${auth.token-cache.revalidate-after-seconds:300}") long revalidateAfterSeconds,
+                              @Value("${auth.token-cache.check-revoked:false}") boolean checkRevoked) {
+        this.firebaseAuth = firebaseAuth;
+        this.tokenVerifier = tokenVerifier;
+        this.firebaseAuthScheduler = firebaseAuthScheduler;
+        this.checkRevoked = checkRevoked;
+        this.revalidateAfterNanos = TimeUnit.SECONDS.toNanos(revalidateAfterSeconds);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new TokenExpiry())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "firebaseTokens");
+    }
+
+    /**
+     * 캐시에 있으면 바로 uid를 돌려주고, 없으면 검증한 뒤 캐시에 넣는다. 호출 스레드를 블로킹하지 않는다.
+     */
+    public Mono<String> verify(String idToken) {
+        String key = hash(idToken);
+        VerifiedToken cached = cache.getIfPresent(key);
+        if (cached != null && !cached.isExpired()) {
+            return Mono.just(cached.getUid());
+        }
+
+        return verifyUncached(idToken)
+                .doOnNext(token -> cache.put(key, token))
+                .map(VerifiedToken::getUid);
+    }
+
+    /**
+     * 특정 사용자의 토큰을 모두 캐시에서 제거한다. (토큰 폐기, 계정 비활성화 시 호출)
+     */
+    public void invalidateUser(String uid) {
+        cache.asMap().values().removeIf(token -> token.getUid().equals(uid));
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private Mono<VerifiedToken> verifyUncached(String idToken) {
+        VerifiedToken token;
+        try {
+            token = tokenVerifier.verify(idToken);
+        } catch (InvalidTokenException e) {
+            // 모르는 kid 도 여기서 401 로 끝난다. 키 갱신은 FirebasePublicKeys 가 retry-seconds 에 한 번만 요청하므로
+            // 임의의 kid 를 담은 토큰이 몰려도 블로킹 풀(firebaseAuthScheduler)을 차지하지 못한다
+            return Mono.error(e);
+        }
+
+        if (!checkRevoked) {
+            return Mono.just(token);
+        }
+        return Mono.fromCallable(() -> checkNotRevoked(token))
+                .subscribeOn(firebaseAuthScheduler);
+    }
+
+    private VerifiedToken checkNotRevoked(VerifiedToken token) throws Exception {
+        UserRecord user = firebaseAuth.getUser(token.getUid());
+        if (user.isDisabled()) {
+            throw new InvalidTokenException("User account is disabled");
+        }
+        if (token.getAuthTimeMillis() < user.getTokensValidAfterTimestamp()) {
+            throw new InvalidTokenException("ID token has been revoked");
+        }
+        return token;
+    }
+
+    private static String hash(String idToken) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hashed = digest.digest(idToken.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hashed);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private class TokenExpiry implements Expiry<String, VerifiedToken> {
+
+        @Override
+        public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+            long untilExpiry = TimeUnit.MILLISECONDS.toNanos(value.getExpiresAtMillis() - System.currentTimeMillis());
+            return Math.max(0, Math.min(untilExpiry, revalidateAfterNanos));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
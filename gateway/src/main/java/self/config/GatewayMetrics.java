@@ -0,0 +1,76 @@
+package self.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 게이트웨이 지연 시간 지표. 라우트 id 별 Timer 를 처음 한 번만 만들어 두고 재사용하므로
+ * 요청마다 태그 배열이나 Timer 를 새로 만들지 않는다.
+ *
+ * - gateway.requests{routeId, status}: 게이트웨이 전체 처리 시간 (status = 1xx..5xx)
+ * - gateway.upstream{routeId}: 하위 서비스가 응답 헤더를 돌려주기까지의 시간
+ * - gateway.auth.verify{outcome}: ID 토큰 검증 시간 (캐시 조회 포함)
+ */
+@Component
+public class GatewayMetrics {
+
+    private static final String[] STATUS_CLASSES = {"UNKNOWN", "1xx", "2xx", "3xx", "4xx", "5xx"};
+
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<String, Timer[]> requestTimers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Timer> upstreamTimers = new ConcurrentHashMap<>();
+    private final Timer authSuccess;
+    private final Timer authFailure;
+
+    public GatewayMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.authSuccess = timer("gateway.auth.verify", "outcome", "success");
+        this.authFailure = timer("gateway.auth.verify", "outcome", "failure");
+    }
+
+    public void recordRequest(String routeId, Integer statusCode, long nanos) {
+        Timer[] timers = requestTimers.computeIfAbsent(routeId, this::newRequestTimers);
+        int statusClass = statusCode == null ? 0 : statusCode / 100;
+        timers[statusClass >= 1 && statusClass <= 5 ? statusClass : 0].record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordUpstream(String routeId, long nanos) {
+        upstreamTimers.computeIfAbsent(routeId, id -> timer("gateway.upstream", "routeId", id))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordAuth(boolean success, long nanos) {
+        (success ? authSuccess : authFailure).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private Timer[] newRequestTimers(String routeId) {
+        Timer[] timers = new Timer[STATUS_CLASSES.length];
+        for (int i = 0; i < timers.length; i++) {
+            timers[i] = Timer.builder("gateway.requests")
+                    .tag("routeId", routeId)
+                    .tag("status", STATUS_CLASSES[i])
+                    .publishPercentiles(0.5, 0.9, 0.99, 0.999)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofMillis(1))
+                    .maximumExpectedValue(Duration.ofSeconds(60))
+                    .register(meterRegistry);
+        }
+        return timers;
+    }
+
+    private Timer timer(String name, String tagKey, String tagValue) {
+        return Timer.builder(name)
+                .tag(tagKey, tagValue)
+                .publishPercentiles(0.5, 0.9, 0.99, 0.999)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(10_000))
+                .maximumExpectedValue(Duration.ofSeconds(60))
+                .register(meterRegistry);
+    }
+}
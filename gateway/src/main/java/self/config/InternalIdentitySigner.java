@@ -0,0 +1,66 @@
+package self.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 게이트웨이가 검증을 마친 사용자를 하위 서비스(term, point, qna)에 전달하는 내부 신원 헤더를 만든다.
+ * 하위 서비스는 같은 비밀키로 HMAC 만 확인하면 되므로 Firebase 토큰을 다시 검증하지 않아도 된다.
+ *
+ * 형식: v1.{base64url(uid)}.{만료 epoch 초}.{base64url(HMAC-SHA256)}
+ * 비밀키(auth.internal-identity.secret)가 비어 있으면 헤더를 만들지 않고, 하위 서비스는 기존처럼 토큰을 직접 검증한다.
+ */
+@Component
+public class InternalIdentitySigner {
+
+    public static final String HEADER = "X-Internal-Identity";
+    public static final String UID_HEADER = "X-Authenticated-User-Uid";
+
+    private static final String VERSION = "v1";
+    private static final Base64.Encoder BASE64_URL = Base64.getUrlEncoder().withoutPadding();
+
+    private final byte[] secret;
+    private final long ttlSeconds;
+    private final ThreadLocal<Mac> mac;
+
+    public InternalIdentitySigner(@Value("${auth.internal-identity.secret:}") String secret,
+                                  @Value("${auth.internal-identity.ttl-seconds:60}") long ttlSeconds) {
+        this.secret = secret.getBytes(StandardCharsets.UTF_8);
+        this.ttlSeconds = ttlSeconds;
+        this.mac = ThreadLocal.withInitial(this::newMac);
+    }
+
+    public boolean isEnabled() {
+        return secret.length > 0;
+    }
+
+    /**
+     * uid 에 대한 서명된 신원 값. 비활성화 상태이면 null.
+     */
+    public String sign(String uid) {
+        if (!isEnabled()) {
+            return null;
+        }
+        long expiresAt = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()) + ttlSeconds;
+        String payload = VERSION + "." + BASE64_URL.encodeToString(uid.getBytes(StandardCharsets.UTF_8)) + "." + expiresAt;
+        byte[] signature = mac.get().doFinal(payload.getBytes(StandardCharsets.US_ASCII));
+        return payload + "." + BASE64_URL.encodeToString(signature);
+    }
+
+    private Mac newMac() {
+        try {
+            Mac instance = Mac.getInstance("HmacSHA256");
+            instance.init(new SecretKeySpec(isEnabled() ? secret : new byte[1], "HmacSHA256"));
+            return instance;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package self.config;
+
+/**
+ * 게이트웨이 자체 검증에서 토큰이 거부되었을 때 사용하는 예외.
+ */
+public class InvalidTokenException extends Exception {
+
+    public InvalidTokenException(String message) {
+        super(message);
+    }
+
+    public InvalidTokenException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,86 @@
+package self.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 사용자(uid)와 라우트 id 별로 요청 수를 제한하는 필터.
+ * LLM 호출이나 Firestore 쓰기를 일으키는 라우트를 소수의 클라이언트가 독점하지 못하도록 한다.
+ *
+ * - 사용자 구분: AuthenticationFilter 가 넣은 X-Authenticated-User-Uid, 비로그인 요청은 접속 IP
+ * - 제한 초과 시: 429 Too Many Requests + Retry-After(초)
+ * - 지표: gateway.ratelimit.rejected{routeId}
+ */
+@Component
+public class RateLimitFilter implements GlobalFilter, Ordered {
+
+    private final RateLimitProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Cache<String, TokenBucket> buckets;
+
+    public RateLimitFilter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumBuckets())
+                .expireAfterAccess(10, TimeUnit.MINUTES)
+                .build();
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (!properties.isEnabled()) {
+            return chain.filter(exchange);
+        }
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        if (route == null) {
+            return chain.filter(exchange);
+        }
+        RateLimitProperties.RouteLimit limit = properties.getRoutes().get(route.getId());
+        ServerHttpRequest request = exchange.getRequest();
+        if (limit == null || !limit.appliesTo(request.getMethodValue())) {
+            return chain.filter(exchange);
+        }
+
+        String key = route.getId() + ":" + this.clientKey(request);
+        TokenBucket bucket = buckets.get(key, k -> new TokenBucket(limit.getReplenishRate(), limit.getBurstCapacity()));
+        long waitNanos = bucket.tryConsume(System.nanoTime());
+        if (waitNanos == 0) {
+            return chain.filter(exchange);
+        }
+
+        meterRegistry.counter("gateway.ratelimit.rejected", "routeId", route.getId()).increment();
+        long retryAfterSeconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        exchange.getResponse().setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        exchange.getResponse().getHeaders().set("Retry-After", String.valueOf(retryAfterSeconds));
+        return exchange.getResponse().setComplete();
+    }
+
+    private String clientKey(ServerHttpRequest request) {
+        String uid = request.getHeaders().getFirst(InternalIdentitySigner.UID_HEADER);
+        if (uid != null) {
+            return uid;
+        }
+        InetSocketAddress remoteAddress = request.getRemoteAddress();
+        return remoteAddress != null ? "ip:" + remoteAddress.getHostString() : "anonymous";
+    }
+
+    @Override
+    public int getOrder() {
+        return -9; // AuthenticationFilter(-10) 가 uid 를 넣은 뒤, 요청 병합/응답 캐시보다 먼저 실행
+    }
+}
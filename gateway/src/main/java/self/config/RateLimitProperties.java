@@ -0,0 +1,54 @@
+package self.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 라우트 id 별 요청 제한 설정 (application.yml 의 rate-limit.*)
+ */
+@Component
+@ConfigurationProperties(prefix = "rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    // 기억해 둘 (라우트, 사용자) 버킷 수. 오래 쓰이지 않은 버킷부터 제거
+    private long maximumBuckets = 100000;
+
+    private Map<String, RouteLimit> routes = new HashMap<>();
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    public long getMaximumBuckets() { return maximumBuckets; }
+    public void setMaximumBuckets(long maximumBuckets) { this.maximumBuckets = maximumBuckets; }
+    public Map<String, RouteLimit> getRoutes() { return routes; }
+    public void setRoutes(Map<String, RouteLimit> routes) { this.routes = routes; }
+
+    public static class RouteLimit {
+
+        // 초당 채워지는 토큰 수
+        private double replenishRate = 1;
+
+        // 한 번에 허용하는 최대 요청 수
+        private int burstCapacity = 10;
+
+        // 제한할 HTTP 메소드. 비어 있으면 모든 메소드
+        private List<String> methods = new ArrayList<>();
+
+        public double getReplenishRate() { return replenishRate; }
+        public void setReplenishRate(double replenishRate) { this.replenishRate = replenishRate; }
+        public int getBurstCapacity() { return burstCapacity; }
+        public void setBurstCapacity(int burstCapacity) { this.burstCapacity = burstCapacity; }
+        public List<String> getMethods() { return methods; }
+        public void setMethods(List<String> methods) { this.methods = methods; }
+
+        public boolean appliesTo(String method) {
+            return methods.isEmpty() || methods.contains(method);
+        }
+    }
+}
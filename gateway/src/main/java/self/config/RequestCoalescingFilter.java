@@ -0,0 +1,180 @@
+package self.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 동시에 들어온 같은 GET 요청을 하위 서비스 호출 한 번으로 합치는 필터 (single-flight).
+ * 인기 질문이 공유되어 같은 /qna/{id} 요청이 몰릴 때 Firestore 조회가 요청 수만큼 늘어나는 것을 막는다.
+ *
+ * - 대상: request-coalescing.paths 로 시작하는 GET 요청 (기본 비활성화, opt-in)
+ * - 키: 경로 + 쿼리 + Authorization 토큰 해시 (권한이 다른 요청끼리는 합치지 않는다)
+ * - 먼저 온 요청(leader)만 하위 서비스로 전달하고, 응답 상태/헤더/본문을 기다리던 요청들에 그대로 복사한다
+ * - 기다리는 요청은 max-wait-millis 를 넘기면 직접 하위 서비스를 호출한다
+ * - 이미 끝난 응답은 보관하지 않으므로 오래된 데이터를 돌려주지 않는다
+ * - 지표: gateway.coalescing{result=leader|collapsed|timeout}
+ *
+ * AuthenticationFilter(-10), RateLimitFilter(-9), CircuitBreakerFilter(-8) 뒤에 실행되므로
+ * 합쳐진 요청(follower)도 각자 토큰 검증, 속도 제한, 벌크헤드를 거친 뒤에만 leader 의 응답을 받는다.
+ */
+@Component
+public class RequestCoalescingFilter implements GlobalFilter, Ordered {
+
+    private final boolean enabled;
+    private final String[] paths;
+    private final Duration maxWait;
+    private final int maximumBodyBytes;
+    private final ConcurrentMap<String, CompletableFuture<CapturedResponse>> inFlight = new ConcurrentHashMap<>();
+    private final Counter leaders;
+    private final Counter collapsed;
+    private final Counter timeouts;
+
+    public RequestCoalescingFilter(MeterRegistry meterRegistry,
+                                   @Value("${request-coalescing.enabled:false}") boolean enabled,
+                                   @Value("${request-coalescing.paths:/qna}") String[] paths,
+                                   @Value("${request-coalescing.max-wait-millis:2000}") long maxWaitMillis,
+                                   @Value("${request-coalescing.maximum-body-bytes:1048576}") int maximumBodyBytes) {
+        this.enabled = enabled;
+        this.paths = paths;
+        this.maxWait = Duration.ofMillis(maxWaitMillis);
+        this.maximumBodyBytes = maximumBodyBytes;
+        this.leaders = meterRegistry.counter("gateway.coalescing", "result", "leader");
+        this.collapsed = meterRegistry.counter("gateway.coalescing", "result", "collapsed");
+        this.timeouts = meterRegistry.counter("gateway.coalescing", "result", "timeout");
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (!enabled || request.getMethod() != HttpMethod.GET || !this.isCoalesced(request.getURI().getRawPath())) {
+            return chain.filter(exchange);
+        }
+
+        String key = this.coalescingKey(request);
+        CompletableFuture<CapturedResponse> flight = new CompletableFuture<>();
+        CompletableFuture<CapturedResponse> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            return this.follow(exchange, chain, existing);
+        }
+
+        leaders.increment();
+        ServerHttpResponseDecorator capturing = new ServerHttpResponseDecorator(exchange.getResponse()) {
+            @Override
+            public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+                return DataBufferUtils.join(Flux.from(body)).flatMap(joined -> {
+                    byte[] bytes = new byte[joined.readableByteCount()];
+                    joined.read(bytes);
+                    DataBufferUtils.release(joined);
+
+                    if (bytes.length <= maximumBodyBytes) {
+                        complete(key, flight, new CapturedResponse(getStatusCode(), getHeaders(), bytes));
+                    }
+                    return super.writeWith(Mono.just(bufferFactory().wrap(bytes)));
+                });
+            }
+        };
+        // 본문 없이 끝났거나(401, 429 등) 오류가 난 경우 기다리던 요청은 각자 하위 서비스를 호출한다
+        return chain.filter(exchange.mutate().response(capturing).build())
+                .doFinally(signal -> complete(key, flight, null));
+    }
+
+    private Mono<Void> follow(ServerWebExchange exchange, GatewayFilterChain chain,
+                              CompletableFuture<CapturedResponse> flight) {
+        return Mono.fromFuture(flight)
+                .timeout(maxWait)
+                .doOnError(e -> timeouts.increment())
+                .onErrorResume(e -> Mono.empty())
+                .flatMap(captured -> {
+                    collapsed.increment();
+                    return this.writeCaptured(exchange.getResponse(), captured);
+                })
+                .switchIfEmpty(Mono.defer(() -> chain.filter(exchange)));
+    }
+
+    private void complete(String key, CompletableFuture<CapturedResponse> flight, CapturedResponse response) {
+        // 먼저 맵에서 빼서, 이후에 들어오는 요청은 새로 하위 서비스를 호출하도록 한다
+        inFlight.remove(key, flight);
+        flight.complete(response);
+    }
+
+    private Mono<Void> writeCaptured(ServerHttpResponse response, CapturedResponse captured) {
+        response.setStatusCode(captured.status);
+        response.getHeaders().putAll(captured.headers);
+        response.getHeaders().remove(HttpHeaders.TRANSFER_ENCODING);
+        response.getHeaders().setContentLength(captured.body.length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(captured.body)));
+    }
+
+    private boolean isCoalesced(String path) {
+        for (String coalescedPath : paths) {
+            if (path.startsWith(coalescedPath)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String coalescingKey(ServerHttpRequest request) {
+        String query = request.getURI().getRawQuery();
+        String authorization = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        return request.getURI().getRawPath()
+                + (query == null ? "" : "?" + query)
+                + "#" + (authorization == null ? "" : hash(authorization));
+    }
+
+    private static String hash(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    @Override
+    public int getOrder() {
+        // ResponseCacheFilter 바깥에서 응답을 가로채야 캐시 적중 응답도 함께 나눠 줄 수 있다.
+        // 응답 데코레이터는 NettyWriteResponseFilter(-1) 보다 앞서야 한다. 인증/요청 제한/벌크헤드는 이보다 앞(-10 ~ -8)
+        return NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 2;
+    }
+
+    private static class CapturedResponse {
+        private final HttpStatus status;
+        private final HttpHeaders headers;
+        private final byte[] body;
+
+        CapturedResponse(HttpStatus status, HttpHeaders headers, byte[] body) {
+            this.status = status;
+            this.headers = new HttpHeaders();
+            this.headers.putAll(headers);
+            this.body = body;
+        }
+    }
+}
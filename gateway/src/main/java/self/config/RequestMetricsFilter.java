@@ -0,0 +1,40 @@
+package self.config;
+
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * 라우트 id 와 응답 상태별로 게이트웨이 전체 처리 시간을 기록한다. 다른 모든 필터보다 먼저 실행된다.
+ */
+@Component
+public class RequestMetricsFilter implements GlobalFilter, Ordered {
+
+    private final GatewayMetrics gatewayMetrics;
+
+    public RequestMetricsFilter(GatewayMetrics gatewayMetrics) {
+        this.gatewayMetrics = gatewayMetrics;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        long start = System.nanoTime();
+        return chain.filter(exchange).doFinally(signal -> {
+            Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+            HttpStatus status = exchange.getResponse().getStatusCode();
+            gatewayMetrics.recordRequest(route != null ? route.getId() : "unknown",
+                    status != null ? status.value() : null, System.nanoTime() - start);
+        });
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+}
@@ -0,0 +1,215 @@
+package self.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 비로그인 GET 요청(주로 /qna 게시판 조회)의 응답을 게이트웨이에 잠시 보관하는 캐시.
+ *
+ * - 대상: Authorization 헤더가 없는 GET 요청 중 response-cache.paths 로 시작하는 경로의 200 응답
+ * - 키: 경로 + 쿼리 문자열. 하위 서비스의 응답 헤더도 함께 보관한다 (Transfer-Encoding 등 전송 헤더 제외)
+ * - 크기: 응답 본문과 헤더의 바이트 합계(maximum-bytes)로 제한, ttl-seconds 후 만료
+ * - ETag 를 붙여 주고 If-None-Match 가 일치하면 본문 없이 304 를 돌려준다
+ * - 같은 경로 아래로 쓰기 요청(POST/PUT/DELETE)이 2xx 로 끝나면 해당 경로의 캐시를 비운다.
+ *   인증에 실패(401)했거나 거절된 쓰기는 캐시를 건드리지 않는다
+ */
+@Component
+public class ResponseCacheFilter implements GlobalFilter, Ordered {
+
+    // 캐시에 보관하지 않는 헤더 (전송/연결 헤더와 본문 길이는 보낼 때 다시 정하고, 쿠키는 사용자마다 다르다)
+    private static final Set<String> UNCACHED_HEADERS = Set.of(
+            "transfer-encoding", "content-length", "connection", "keep-alive", "upgrade", "set-cookie");
+
+    private final boolean enabled;
+    private final String[] paths;
+    private final int maximumEntryBytes;
+    private final Cache<String, CachedResponse> cache;
+    private final Counter notModified;
+
+    // 성공한 쓰기 요청마다 증가. 응답을 받는 사이에 쓰기가 있었다면 그 응답은 캐시에 넣지 않는다
+    private final AtomicLong generation = new AtomicLong();
+
+    public ResponseCacheFilter(MeterRegistry meterRegistry,
+                               @Value("${response-cache.enabled:true}") boolean enabled,
+                               @Value("${response-cache.paths:/qna}") String[] paths,
+                               @Value("${response-cache.ttl-seconds:5}") long ttlSeconds,
+                               @Value("${response-cache.maximum-bytes:33554432}") long maximumBytes,
+                               @Value("${response-cache.maximum-entry-bytes:1048576}") int maximumEntryBytes) {
+        this.enabled = enabled;
+        this.paths = paths;
+        this.maximumEntryBytes = maximumEntryBytes;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maximumBytes)
+                .weigher((String key, CachedResponse value) -> key.length() + value.weight())
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        this.notModified = meterRegistry.counter("gateway.response.cache.not.modified");
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "gatewayResponses");
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        String cachedPath = enabled ? this.matchingPath(request.getURI().getRawPath()) : null;
+        if (cachedPath == null) {
+            return chain.filter(exchange);
+        }
+
+        if (request.getMethod() != HttpMethod.GET) {
+            // 쓰기 요청: 성공한 뒤에만 캐시를 비운다. 쓰기 도중에 캐시된 조회 응답도 이때 함께 지워진다
+            return chain.filter(exchange).doOnSuccess(done -> {
+                HttpStatus status = exchange.getResponse().getStatusCode();
+                if (status != null && status.is2xxSuccessful()) {
+                    this.invalidate(cachedPath);
+                }
+            });
+        }
+        if (request.getHeaders().containsKey(HttpHeaders.AUTHORIZATION)) {
+            return chain.filter(exchange);
+        }
+
+        String key = this.cacheKey(request);
+        String ifNoneMatch = request.getHeaders().getFirst(HttpHeaders.IF_NONE_MATCH);
+        CachedResponse cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return this.writeCached(exchange.getResponse(), cached, ifNoneMatch);
+        }
+
+        long startGeneration = generation.get();
+        ServerHttpResponse original = exchange.getResponse();
+        ServerHttpResponseDecorator caching = new ServerHttpResponseDecorator(original) {
+            @Override
+            public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+                if (getStatusCode() != HttpStatus.OK) {
+                    return super.writeWith(body);
+                }
+                return DataBufferUtils.join(Flux.from(body)).flatMap(joined -> {
+                    byte[] bytes = new byte[joined.readableByteCount()];
+                    joined.read(bytes);
+                    DataBufferUtils.release(joined);
+
+                    CachedResponse response = new CachedResponse(bytes, getHeaders(), etag(bytes));
+                    if (bytes.length <= maximumEntryBytes && generation.get() == startGeneration) {
+                        cache.put(key, response);
+                    }
+                    return writeCached(getDelegate(), response, ifNoneMatch);
+                });
+            }
+        };
+        return chain.filter(exchange.mutate().response(caching).build());
+    }
+
+    private Mono<Void> writeCached(ServerHttpResponse response, CachedResponse cached, String ifNoneMatch) {
+        HttpHeaders headers = response.getHeaders();
+        headers.putAll(cached.headers);
+        // 본문 길이를 Content-Length 로 알려 주므로 하위 서비스의 chunked 전송 헤더는 함께 보내면 안 된다
+        headers.remove(HttpHeaders.TRANSFER_ENCODING);
+        headers.setETag(cached.etag);
+        if (ifNoneMatch != null && (ifNoneMatch.contains(cached.etag) || ifNoneMatch.trim().equals("*"))) {
+            notModified.increment();
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            headers.remove(HttpHeaders.CONTENT_LENGTH);
+            return response.setComplete();
+        }
+        response.setStatusCode(HttpStatus.OK);
+        headers.setContentLength(cached.body.length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(cached.body)));
+    }
+
+    private void invalidate(String cachedPath) {
+        generation.incrementAndGet();
+        cache.asMap().keySet().removeIf(key -> key.startsWith(cachedPath));
+    }
+
+    private String matchingPath(String path) {
+        for (String cachedPath : paths) {
+            if (path.startsWith(cachedPath)) {
+                return cachedPath;
+            }
+        }
+        return null;
+    }
+
+    private String cacheKey(ServerHttpRequest request) {
+        String query = request.getURI().getRawQuery();
+        return query == null ? request.getURI().getRawPath() : request.getURI().getRawPath() + "?" + query;
+    }
+
+    private static String etag(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            StringBuilder etag = new StringBuilder("\"");
+            for (int i = 0; i < 16; i++) {
+                etag.append(Character.forDigit((digest[i] >> 4) & 0xF, 16)).append(Character.forDigit(digest[i] & 0xF, 16));
+            }
+            return etag.append('"').toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    @Override
+    public int getOrder() {
+        // 응답 본문을 가로채려면 NettyWriteResponseFilter 보다 먼저 등록되어야 한다
+        return NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1;
+    }
+
+    private static class CachedResponse {
+        private final byte[] body;
+        private final HttpHeaders headers;
+        private final String etag;
+
+        CachedResponse(byte[] body, HttpHeaders upstreamHeaders, String etag) {
+            this.body = body;
+            this.headers = new HttpHeaders();
+            upstreamHeaders.forEach((name, values) -> {
+                if (!UNCACHED_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                    this.headers.put(name, List.copyOf(values));
+                }
+            });
+            this.etag = etag;
+        }
+
+        int weight() {
+            int weight = body.length;
+            for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+                weight += header.getKey().length();
+                for (String value : header.getValue()) {
+                    weight += value.length();
+                }
+            }
+            return weight;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package self.config;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 라우트 하나에 대한 서킷 브레이커. 최근 N 번 호출(count 기반 슬라이딩 윈도)의 실패율과 느린 호출 비율로 상태를 바꾼다.
+ *
+ * CLOSED    : 모든 호출 허용, 비율이 임계값을 넘으면 OPEN
+ * OPEN      : 모든 호출 즉시 거부, wait-duration 이 지나면 HALF_OPEN
+ * HALF_OPEN : 정해진 수의 시험 호출만 허용, 그 결과가 임계값 아래면 CLOSED, 아니면 다시 OPEN
+ *
+ * 상태 변경은 짧은 synchronized 구간에서만 일어나며, 라우트마다 별도 인스턴스라 라우트 사이에는 경합이 없다.
+ */
+public class RouteCircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private static final byte FAILED = 1;
+    private static final byte SLOW = 2;
+
+    private final CircuitBreakerProperties.RouteSettings settings;
+    private final long slowCallNanos;
+    private final long waitInOpenNanos;
+
+    // CLOSED 상태의 슬라이딩 윈도 (호출 결과 비트: FAILED, SLOW)
+    private final byte[] window;
+    private int windowIndex;
+    private int windowCount;
+    private int windowFailures;
+    private int windowSlows;
+
+    private volatile State state = State.CLOSED;
+    private long openedAtNanos;
+    private int halfOpenPermitted;
+    private int halfOpenCompleted;
+    private int halfOpenFailures;
+    private int halfOpenSlows;
+
+    public RouteCircuitBreaker(CircuitBreakerProperties.RouteSettings settings) {
+        this.settings = settings;
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(settings.getSlowCallDurationMillis());
+        this.waitInOpenNanos = TimeUnit.MILLISECONDS.toNanos(settings.getWaitDurationInOpenMillis());
+        this.window = new byte[settings.getSlidingWindowSize()];
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * 호출해도 되는지 확인한다. true 를 받았다면 반드시 onResult 또는 onIgnored 를 호출해야 한다.
+     */
+    public synchronized boolean tryAcquirePermission(long nowNanos) {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.OPEN) {
+            if (nowNanos - openedAtNanos < waitInOpenNanos) {
+                return false;
+            }
+            toHalfOpen();
+        }
+        if (halfOpenPermitted < settings.getPermittedCallsInHalfOpen()) {
+            halfOpenPermitted++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * OPEN 상태에서 다시 시험 호출을 허용하기까지 남은 시간(나노초).
+     */
+    public synchronized long remainingOpenNanos(long nowNanos) {
+        return state == State.OPEN ? Math.max(0, waitInOpenNanos - (nowNanos - openedAtNanos)) : 0;
+    }
+
+    public synchronized void onResult(long durationNanos, boolean failed, long nowNanos) {
+        byte outcome = (byte) ((failed ? FAILED : 0) | (durationNanos >= slowCallNanos ? SLOW : 0));
+        if (state == State.CLOSED) {
+            record(outcome);
+            if (windowCount >= settings.getMinimumNumberOfCalls() && exceedsThreshold(windowFailures, windowSlows, windowCount)) {
+                toOpen(nowNanos);
+            }
+        } else if (state == State.HALF_OPEN) {
+            halfOpenCompleted++;
+            halfOpenFailures += outcome & FAILED;
+            halfOpenSlows += (outcome & SLOW) >> 1;
+            if (halfOpenCompleted >= settings.getPermittedCallsInHalfOpen()) {
+                if (exceedsThreshold(halfOpenFailures, halfOpenSlows, halfOpenCompleted)) {
+                    toOpen(nowNanos);
+                } else {
+                    toClosed();
+                }
+            }
+        }
+    }
+
+    /**
+     * 결과를 판단할 수 없는 호출(클라이언트가 연결을 끊은 경우 등). HALF_OPEN 의 시험 호출 자리를 돌려준다.
+     */
+    public synchronized void onIgnored() {
+        if (state == State.HALF_OPEN && halfOpenPermitted > halfOpenCompleted) {
+            halfOpenPermitted--;
+        }
+    }
+
+    private void record(byte outcome) {
+        if (windowCount == window.length) {
+            byte evicted = window[windowIndex];
+            windowFailures -= evicted & FAILED;
+            windowSlows -= (evicted & SLOW) >> 1;
+        } else {
+            windowCount++;
+        }
+        window[windowIndex] = outcome;
+        windowFailures += outcome & FAILED;
+        windowSlows += (outcome & SLOW) >> 1;
+        windowIndex = (windowIndex + 1) % window.length;
+    }
+
+    private boolean exceedsThreshold(int failures, int slows, int calls) {
+        return failures * 100f / calls >= settings.getFailureRateThreshold()
+                || slows * 100f / calls >= settings.getSlowCallRateThreshold();
+    }
+
+    private void toOpen(long nowNanos) {
+        state = State.OPEN;
+        openedAtNanos = nowNanos;
+    }
+
+    private void toHalfOpen() {
+        state = State.HALF_OPEN;
+        halfOpenPermitted = 0;
+        halfOpenCompleted = 0;
+        halfOpenFailures = 0;
+        halfOpenSlows = 0;
+    }
+
+    private void toClosed() {
+        state = State.CLOSED;
+        windowIndex = 0;
+        windowCount = 0;
+        windowFailures = 0;
+        windowSlows = 0;
+    }
+}
@@ -0,0 +1,160 @@
+package self.config;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+
+/**
+ * 요청 경로와 메소드에 어떤 인증 정책을 적용할지 결정한다.
+ * 설정의 규칙을 시작할 때 경로 세그먼트 트라이로 컴파일해 두고, 요청마다 문자열을 나누거나 리스트를 만들지 않고 조회한다.
+ *
+ * 패턴 문법: 고정 세그먼트, '*' (세그먼트 하나), 마지막의 '**' (0개 이상의 나머지 세그먼트)
+ * 여러 규칙이 맞으면 더 구체적인 규칙(고정 세그먼트 > '*' > '**', 메소드 지정 > 전체 메소드)이 이긴다.
+ */
+@Component
+public class RoutePolicy {
+
+    public enum Access {
+        // 토큰을 검증하지 않고 통과 (회원가입 등)
+        PUBLIC,
+        // 토큰이 없어도 통과, 있으면 검증해서 uid 를 전달
+        ANONYMOUS,
+        // 유효한 토큰 필수
+        AUTHENTICATED
+    }
+
+    private static final int ANY_METHOD = HttpMethod.values().length;
+
+    private final Node root = new Node("");
+    private final Access defaultAccess;
+
+    public RoutePolicy(RoutePolicyProperties properties) {
+        this.defaultAccess = properties.getDefaultAccess();
+        for (RoutePolicyProperties.Rule rule : properties.getRules()) {
+            this.compile(rule);
+        }
+    }
+
+    public Access resolve(HttpMethod method, String path) {
+        Access access = match(root, path, 0, method);
+        return access != null ? access : defaultAccess;
+    }
+
+    private void compile(RoutePolicyProperties.Rule rule) {
+        if (rule.getPattern() == null || rule.getAccess() == null) {
+            throw new IllegalArgumentException("route-policy rule needs pattern and access: " + rule.getPattern());
+        }
+        String[] segments = Arrays.stream(rule.getPattern().split("/")).filter(s -> !s.isEmpty()).toArray(String[]::new);
+        Node node = root;
+        boolean rest = false;
+        for (int i = 0; i < segments.length; i++) {
+            String segment = segments[i];
+            if ("**".equals(segment)) {
+                if (i != segments.length - 1) {
+                    throw new IllegalArgumentException("'**' must be the last segment: " + rule.getPattern());
+                }
+                rest = true;
+            } else if ("*".equals(segment)) {
+                if (node.single == null) {
+                    node.single = new Node("*");
+                }
+                node = node.single;
+            } else {
+                node = node.child(segment);
+            }
+        }
+
+        Access[] target = rest ? node.restAccess() : node.exactAccess();
+        if (rule.getMethods().isEmpty()) {
+            target[ANY_METHOD] = rule.getAccess();
+        } else {
+            for (String method : rule.getMethods()) {
+                target[HttpMethod.valueOf(method.toUpperCase()).ordinal()] = rule.getAccess();
+            }
+        }
+    }
+
+    private static Access match(Node node, String path, int position, HttpMethod method) {
+        int start = position;
+        while (start < path.length() && path.charAt(start) == '/') {
+            start++;
+        }
+        if (start >= path.length()) {
+            Access access = select(node.exact, method);
+            return access != null ? access : select(node.rest, method);
+        }
+
+        int end = path.indexOf('/', start);
+        if (end < 0) {
+            end = path.length();
+        }
+        int length = end - start;
+        for (Node child : node.children) {
+            if (child.segment.length() == length && path.regionMatches(start, child.segment, 0, length)) {
+                Access access = match(child, path, end, method);
+                if (access != null) {
+                    return access;
+                }
+            }
+        }
+        if (node.single != null) {
+            Access access = match(node.single, path, end, method);
+            if (access != null) {
+                return access;
+            }
+        }
+        return select(node.rest, method);
+    }
+
+    private static Access select(Access[] accesses, HttpMethod method) {
+        if (accesses == null) {
+            return null;
+        }
+        if (method != null && accesses[method.ordinal()] != null) {
+            return accesses[method.ordinal()];
+        }
+        return accesses[ANY_METHOD];
+    }
+
+    private static final class Node {
+        private static final Node[] NO_CHILDREN = new Node[0];
+
+        private final String segment;
+        private Node[] children = NO_CHILDREN;
+        private Node single;
+        // 이 노드에서 경로가 끝날 때의 정책, 이 노드 아래 나머지 전체('**')에 대한 정책 (메소드 ordinal 별 + 전체)
+        private Access[] exact;
+        private Access[] rest;
+
+        Node(String segment) {
+            this.segment = segment;
+        }
+
+        Node child(String segment) {
+            for (Node child : children) {
+                if (child.segment.equals(segment)) {
+                    return child;
+                }
+            }
+            Node child = new Node(segment);
+            children = Arrays.copyOf(children, children.length + 1);
+            children[children.length - 1] = child;
+            return child;
+        }
+
+        Access[] exactAccess() {
+            if (exact == null) {
+                exact = new Access[ANY_METHOD + 1];
+            }
+            return exact;
+        }
+
+        Access[] restAccess() {
+            if (rest == null) {
+                rest = new Access[ANY_METHOD + 1];
+            }
+            return rest;
+        }
+    }
+}
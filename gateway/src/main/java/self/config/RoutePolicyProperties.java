@@ -0,0 +1,43 @@
+package self.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 경로별 인증 정책 표 (application.yml 의 route-policy.*). 시작할 때 RoutePolicy 가 트라이로 컴파일한다.
+ */
+@Component
+@ConfigurationProperties(prefix = "route-policy")
+public class RoutePolicyProperties {
+
+    // 어떤 규칙에도 맞지 않는 경로의 정책
+    private RoutePolicy.Access defaultAccess = RoutePolicy.Access.AUTHENTICATED;
+
+    private List<Rule> rules = new ArrayList<>();
+
+    public RoutePolicy.Access getDefaultAccess() { return defaultAccess; }
+    public void setDefaultAccess(RoutePolicy.Access defaultAccess) { this.defaultAccess = defaultAccess; }
+    public List<Rule> getRules() { return rules; }
+    public void setRules(List<Rule> rules) { this.rules = rules; }
+
+    public static class Rule {
+
+        // 예: /qna/**, /terms/*/diff, /api/auth/signup
+        private String pattern;
+
+        // 비어 있으면 모든 메소드
+        private List<String> methods = new ArrayList<>();
+
+        private RoutePolicy.Access access;
+
+        public String getPattern() { return pattern; }
+        public void setPattern(String pattern) { this.pattern = pattern; }
+        public List<String> getMethods() { return methods; }
+        public void setMethods(List<String> methods) { this.methods = methods; }
+        public RoutePolicy.Access getAccess() { return access; }
+        public void setAccess(RoutePolicy.Access access) { this.access = access; }
+    }
+}
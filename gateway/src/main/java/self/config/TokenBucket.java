@@ -0,0 +1,39 @@
+package self.config;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 잠금 없이 동작하는 토큰 버킷.
+ * GCRA(Generic Cell Rate Algorithm) 방식으로 "다음 토큰이 생기는 이론적 시각" 하나만 AtomicLong 에 두고 CAS 로 갱신한다.
+ * 초당 replenishRate 개씩 채워지고 최대 burstCapacity 개까지 한 번에 쓸 수 있는 일반 토큰 버킷과 같은 결과를 낸다.
+ */
+public class TokenBucket {
+
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final AtomicLong theoreticalArrivalNanos = new AtomicLong(Long.MIN_VALUE);
+
+    public TokenBucket(double replenishRate, int burstCapacity) {
+        this.emissionIntervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / replenishRate);
+        this.burstToleranceNanos = emissionIntervalNanos * burstCapacity;
+    }
+
+    /**
+     * 토큰 하나를 꺼낸다. 성공하면 0, 실패하면 다음 토큰까지 기다려야 하는 시간(나노초)을 반환한다.
+     */
+    public long tryConsume(long nowNanos) {
+        while (true) {
+            long current = theoreticalArrivalNanos.get();
+            long base = current == Long.MIN_VALUE || current - nowNanos < 0 ? nowNanos : current;
+            long next = base + emissionIntervalNanos;
+            long allowAt = next - burstToleranceNanos;
+            if (allowAt - nowNanos > 0) {
+                return allowAt - nowNanos;
+            }
+            if (theoreticalArrivalNanos.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package self.config;
+
+/**
+ * 서명과 클레임 검증을 통과한 ID 토큰에서 게이트웨이가 필요로 하는 값만 추린 것.
+ */
+public class VerifiedToken {
+
+    private final String uid;
+    private final long authTimeMillis;
+    private final long expiresAtMillis;
+
+    public VerifiedToken(String uid, long authTimeMillis, long expiresAtMillis) {
+        this.uid = uid;
+        this.authTimeMillis = authTimeMillis;
+        this.expiresAtMillis = expiresAtMillis;
+    }
+
+    public String getUid() { return uid; }
+    public long getAuthTimeMillis() { return authTimeMillis; }
+    public long getExpiresAtMillis() { return expiresAtMillis; }
+
+    public boolean isExpired() {
+        return System.currentTimeMillis() >= expiresAtMillis;
+    }
+}
@@ -1,13 +1,20 @@
 package self.infra;
 
+import com.google.firebase.auth.FirebaseAuthException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import self.config.InternalIdentityResolver;
 import self.domain.Point;
 import self.domain.PointHistory;
 import self.service.PointService;
+
+import javax.servlet.http.HttpServletRequest;
 import java.util.concurrent.CompletableFuture;
 
 @RestController
@@ -17,9 +24,31 @@ public class PointController {
     @Autowired
     private PointService pointService;
 
+    @Autowired
+    private InternalIdentityResolver internalIdentityResolver;
+
+    @Autowired
+    private HttpServletRequest request;
+
+    // 요청한 사용자가 경로의 firebaseUid 본인인지 확인 (게이트웨이 신원 헤더 우선, 없으면 토큰 직접 검증)
+    // ai 서비스가 내부에서 호출하는 reduce/add 는 대상이 아님
+    private void checkOwner(String firebaseUid) {
+        String uid;
+        try {
+            uid = internalIdentityResolver.resolveUid(
+                    request.getHeader(InternalIdentityResolver.HEADER), request.getHeader(HttpHeaders.AUTHORIZATION));
+        } catch (FirebaseAuthException | IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Failed to verify Firebase ID token");
+        }
+        if (!uid.equals(firebaseUid)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "User does not have permission for these points");
+        }
+    }
+
     // Firebase UID로 포인트 조회
     @GetMapping("/{firebaseUid}")
     public Mono<ResponseEntity<Object>> getPointByFirebaseUid(@PathVariable String firebaseUid) {
+        checkOwner(firebaseUid);
         return pointService.getOrCreatePoint(firebaseUid)
                 .map(point -> ResponseEntity.ok(new PointResponse(point.getId(), point.getUserId(), point.getAmount())))
                 .cast(ResponseEntity.class)
@@ -30,12 +59,15 @@ public class PointController {
     // 포인트 변동 내역 조회 API
     @GetMapping("/{firebaseUid}/history")
     public Flux<PointHistory> getPointHistory(@PathVariable String firebaseUid) {
+        checkOwner(firebaseUid);
         return pointService.getPointHistory(firebaseUid);
     }
 
     // 포인트 충전 API (비동기 처리)
     @PostMapping("/{firebaseUid}/charge")
     public Mono<ResponseEntity<Object>> chargePoint(@PathVariable String firebaseUid, @RequestBody ChargeRequest chargeRequest) {
+        checkOwner(firebaseUid);
+
         // 백그라운드에서 포인트 충전 로직 실행
         CompletableFuture.runAsync(() -> {
             pointService.chargePoint(firebaseUid, chargeRequest.getAmount()).subscribe(
@@ -0,0 +1,97 @@
+package self.qna.config;
+
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseAuthException;
+import com.google.firebase.auth.FirebaseToken;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 요청한 사용자의 uid 를 확인한다.
+ * 게이트웨이를 거친 요청은 게이트웨이가 서명한 X-Internal-Identity 헤더의 HMAC 만 확인하고,
+ * 헤더가 없거나 유효하지 않은 요청(게이트웨이를 거치지 않은 직접 호출 등)만 Firebase ID 토큰을 직접 검증한다.
+ *
+ * 헤더 형식은 gateway 의 InternalIdentitySigner 와 같다: v1.{base64url(uid)}.{만료 epoch 초}.{base64url(HMAC-SHA256)}
+ */
+@Component
+public class InternalIdentityResolver {
+
+    public static final String HEADER = "X-Internal-Identity";
+
+    private static final String VERSION = "v1";
+
+    @Autowired
+    private FirebaseAuth firebaseAuth;
+
+    @Value("${auth.internal-identity.secret:}")
+    private String secret;
+
+    private ThreadLocal<Mac> mac;
+
+    @PostConstruct
+    public void init() {
+        mac = ThreadLocal.withInitial(this::newMac);
+    }
+
+    public String resolveUid(String identityHeader, String authorizationHeader) throws FirebaseAuthException {
+        String uid = verifyIdentity(identityHeader);
+        if (uid != null) {
+            return uid;
+        }
+
+        if (authorizationHeader == null || !authorizationHeader.startsWith("Bearer ")) {
+            throw new IllegalArgumentException("Invalid Firebase ID token");
+        }
+        String token = authorizationHeader.substring(7);
+        FirebaseToken decodedToken = firebaseAuth.verifyIdToken(token);
+        return decodedToken.getUid();
+    }
+
+    /**
+     * 서명과 만료 시각이 유효하면 uid, 아니면 null.
+     */
+    private String verifyIdentity(String identityHeader) {
+        if (identityHeader == null || secret.isEmpty()) {
+            return null;
+        }
+        String[] parts = identityHeader.split("\\.");
+        if (parts.length != 4 || !VERSION.equals(parts[0])) {
+            return null;
+        }
+        try {
+            long expiresAt = Long.parseLong(parts[2]);
+            if (expiresAt < TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis())) {
+                return null;
+            }
+            String payload = parts[0] + "." + parts[1] + "." + parts[2];
+            byte[] expected = mac.get().doFinal(payload.getBytes(StandardCharsets.US_ASCII));
+            if (!MessageDigest.isEqual(expected, Base64.getUrlDecoder().decode(parts[3]))) {
+                return null;
+            }
+            return new String(Base64.getUrlDecoder().decode(parts[1]), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private Mac newMac() {
+        try {
+            Mac instance = Mac.getInstance("HmacSHA256");
+            byte[] key = secret.isEmpty() ? new byte[1] : secret.getBytes(StandardCharsets.UTF_8);
+            instance.init(new SecretKeySpec(key, "HmacSHA256"));
+            return instance;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+}
@@ -1,17 +1,17 @@
 package self.qna.infra;
 
-import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseAuthException;
-import com.google.firebase.auth.FirebaseToken;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
+import self.qna.config.InternalIdentityResolver;
 import self.qna.domain.*;
 import self.qna.service.QnaService;
 
+import javax.servlet.http.HttpServletRequest;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ExecutionException;
@@ -24,15 +24,14 @@ public class QnaController {
     private QnaService qnaService;
 
     @Autowired
-    private FirebaseAuth firebaseAuth;
+    private InternalIdentityResolver internalIdentityResolver;
 
+    @Autowired
+    private HttpServletRequest request;
+
+    // 게이트웨이가 서명한 신원 헤더가 있으면 그것을 쓰고, 없을 때만 Firebase 토큰을 직접 검증
     private String getUidFromToken(String authorizationHeader) throws FirebaseAuthException {
-        if (authorizationHeader == null || !authorizationHeader.startsWith("Bearer ")) {
-            throw new IllegalArgumentException("Invalid Firebase ID token");
-        }
-        String token = authorizationHeader.substring(7);
-        FirebaseToken decodedToken = firebaseAuth.verifyIdToken(token);
-        return decodedToken.getUid();
+        return internalIdentityResolver.resolveUid(request.getHeader(InternalIdentityResolver.HEADER), authorizationHeader);
     }
 
     @PostMapping
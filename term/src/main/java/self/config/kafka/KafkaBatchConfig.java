@@ -0,0 +1,63 @@
+package self.config.kafka;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.annotation.EnableKafka;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.RecoveringBatchErrorHandler;
+import org.springframework.util.backoff.FixedBackOff;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * PolicyBatchHandler 용 배치 리스너 컨테이너 (term.events.batch.enabled=true 일 때만).
+ *
+ * - 한 번의 poll 로 최대 max-records 개를 받아 리스트로 넘긴다
+ * - 오프셋은 자동 커밋하지 않고 리스너가 반영을 끝낸 뒤 acknowledge 할 때만 커밋한다
+ * - 리스너가 BatchListenerFailedException 으로 실패한 레코드를 알려 주면 그 앞까지는 커밋하고,
+ *   실패한 레코드부터 retry-interval-millis 뒤에 다시 받는다 (max-retries 번).
+ *   그래도 실패하면 그 레코드 하나만 스택 트레이스와 함께 기록하고 건너뛴 뒤 나머지를 계속 처리한다
+ * - 어느 레코드인지 모르는 실패(Firestore 조회 실패 등)는 배치 전체를 같은 간격과 횟수로 다시 받고, 그래도 실패하면 배치를 건너뛴다
+ *
+ * 스트림 바인딩(event-in)과 같은 토픽, 같은 group 을 쓰므로 켤 때는 event-in 소비를 꺼야 한다 (application.yml 참고).
+ */
+@Configuration
+@EnableKafka
+@ConditionalOnProperty(name = "term.events.batch.enabled", havingValue = "true")
+public class KafkaBatchConfig {
+
+    public static final String CONTAINER_FACTORY = "termEventBatchContainerFactory";
+
+    @Bean(CONTAINER_FACTORY)
+    public ConcurrentKafkaListenerContainerFactory<String, String> termEventBatchContainerFactory(
+            @Value("${spring.cloud.stream.kafka.binder.brokers:localhost:9092}") String brokers,
+            @Value("${term.events.batch.max-records:500}") int maxRecords,
+            @Value("${term.events.batch.retry-interval-millis:1000}") long retryIntervalMillis,
+            @Value("${term.events.batch.max-retries:2}") long maxRetries) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, brokers);
+        properties.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        properties.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxRecords);
+        properties.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        properties.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        properties.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+
+        ConcurrentKafkaListenerContainerFactory<String, String> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(new DefaultKafkaConsumerFactory<>(properties));
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.setBatchErrorHandler(new RecoveringBatchErrorHandler((record, e) -> {
+            System.out.println("##### batch listener: giving up on " + record.topic() + "-" + record.partition()
+                    + " offset " + record.offset() + " #####");
+            e.printStackTrace();
+        }, new FixedBackOff(retryIntervalMillis, maxRetries)));
+        return factory;
+    }
+}
@@ -0,0 +1,79 @@
+package self.domain;
+
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutureCallback;
+import com.google.api.core.ApiFutures;
+import com.google.api.gax.rpc.ApiException;
+import com.google.api.gax.rpc.StatusCode;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Firestore 의 ApiFuture 를 CompletableFuture 로 바꾸는 도우미.
+ * 콜백은 Firestore 응답 스레드에서 바로 실행되므로 이어지는 작업은 블로킹 없이 가볍게 유지해야 한다.
+ */
+public final class FirestoreFutures {
+
+    private FirestoreFutures() {
+    }
+
+    public static <T> CompletableFuture<T> toCompletable(ApiFuture<T> apiFuture) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        ApiFutures.addCallback(apiFuture, new ApiFutureCallback<T>() {
+            @Override
+            public void onFailure(Throwable t) {
+                future.completeExceptionally(t);
+            }
+
+            @Override
+            public void onSuccess(T result) {
+                future.complete(result);
+            }
+        }, MoreExecutors.directExecutor());
+        return future;
+    }
+
+    /**
+     * CompletionException / ExecutionException 으로 감싸진 원래 예외를 꺼낸다.
+     */
+    public static Throwable unwrap(Throwable throwable) {
+        Throwable current = throwable;
+        while ((current instanceof CompletionException || current instanceof ExecutionException) && current.getCause() != null) {
+            current = current.getCause();
+        }
+        return current;
+    }
+
+    /**
+     * 원인을 따라가며 gRPC 상태 코드가 code 인 ApiException 이 있는지 확인한다 (FirestoreException 이 감싸는 경우 포함).
+     */
+    public static boolean hasStatus(Throwable throwable, StatusCode.Code code) {
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ApiException) {
+                return ((ApiException) cause).getStatusCode().getCode() == code;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 동기 호출 측(Kafka 리스너 등)에서 결과를 기다린다. IllegalStateException / IllegalArgumentException 은 그대로 다시 던진다.
+     */
+    public static <T> T await(CompletableFuture<T> future) throws ExecutionException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = unwrap(e);
+            if (cause instanceof IllegalStateException) {
+                throw (IllegalStateException) cause;
+            }
+            if (cause instanceof IllegalArgumentException) {
+                throw (IllegalArgumentException) cause;
+            }
+            throw e;
+        }
+    }
+}
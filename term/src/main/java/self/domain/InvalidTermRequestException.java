@@ -0,0 +1,16 @@
+package self.domain;
+
+/**
+ * 요청 값이나 도메인 규칙에 맞지 않는 요청 (잘못된 cursor, threshold, granularity, 다른 버전의 원본인 버전 삭제 등). HTTP 400.
+ * TermController 는 이 예외만 400 으로 바꾸고, Firestore/SDK 에서 올라온 IllegalStateException 등은 500 으로 둔다.
+ */
+public class InvalidTermRequestException extends IllegalArgumentException {
+
+    public InvalidTermRequestException(String message) {
+        super(message);
+    }
+
+    public InvalidTermRequestException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -1,5 +1,7 @@
 package self.domain;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.google.cloud.firestore.Blob;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
@@ -21,8 +23,31 @@ public class Term {
     private String content;
     private String requirement;
     private String version;
+    // version 의 번호 ("v3" -> 3). 새 버전 저장 시 체인(groupId)별 카운터에서 할당되며 버전 이력 정렬에 쓴다
+    private Long versionNumber;
     private String memo;
     private String origin;
+    // 버전 체인의 루트 문서 ID. 생성 시 정해지고 createNewVersionFrom 으로 만든 버전에 그대로 전달된다
+    private String groupId;
+    // 이 버전을 origin 으로 하는 버전이 없으면 true (체인의 최신 버전). 새 버전 저장/삭제 시 트랜잭션으로 함께 갱신된다
+    private Boolean latest;
+
+    // term.storage.delta.enabled 일 때 content 대신 저장되는 deltaBase 대비 차이 (TermDeltaStore 참고, API 응답에는 포함하지 않음)
+    @JsonIgnore
+    private String contentDelta;
+    @JsonIgnore
+    private String deltaBase;
+    // 마지막 전체 content 저장 이후 몇 번째 delta 인지
+    @JsonIgnore
+    private Integer deltaDepth;
+    // term.storage.compression.enabled 일 때 큰 content/requirement/feedback 대신 저장되는 압축본 (TermCompressionStore 참고)
+    // 읽을 때 TermRepository 가 원래 필드로 복원하고 비우므로 API 응답에는 포함하지 않음
+    @JsonIgnore
+    private Blob contentBlob;
+    @JsonIgnore
+    private Blob requirementBlob;
+    @JsonIgnore
+    private Blob feedbackBlob;
     private Date createdAt;
     private Date modifiedAt;
     private Date expiresAt;
@@ -0,0 +1,24 @@
+package self.domain;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * TermRepository.saveAll / deleteAll 결과.
+ * 배치(최대 500건) 단위로 원자적으로 커밋되므로, 실패한 배치에 속한 문서는 모두 failures 에 기록된다.
+ */
+@Data
+public class TermBatchResult {
+
+    private List<String> succeeded = new ArrayList<>();
+    // 문서 ID -> 실패 사유
+    private Map<String, String> failures = new LinkedHashMap<>();
+
+    public boolean isSuccessful() {
+        return failures.isEmpty();
+    }
+}
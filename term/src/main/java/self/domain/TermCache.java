@@ -0,0 +1,169 @@
+package self.domain;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.*;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * TermRepository.findById 앞에 두는 인스턴스별 read-through 캐시.
+ * 소유권 확인 때문에 같은 요청 안에서, 또 연속된 요청 사이에서 같은 문서를 반복해서 읽는 것을 줄인다.
+ *
+ * - 값: DocumentSnapshot (불변). 조회할 때마다 새 Term 으로 변환하므로 호출 측에서 수정해도 캐시에 영향이 없다
+ * - 크기/만료: term.cache.maximum-size, term.cache.ttl-seconds
+ * - 이 인스턴스의 쓰기(save/delete 등)는 즉시 무효화한다. 읽는 도중에 쓰기가 있었다면 읽은 값은 넣지 않는다
+ * - term.cache.invalidation-channel.enabled=true 이면 무효화할 ID를 Firestore 컬렉션에 기록하고,
+ *   다른 인스턴스는 snapshot listener 로 받아 자기 캐시를 비운다 (꺼져 있으면 다른 인스턴스의 쓰기는 TTL 후 반영).
+ *   받은 ID 는 onRemoteInvalidation 으로 등록한 리스너에도 넘긴다 (메모리 색인 갱신용)
+ * - 지표: cache.gets{cache=termById,result=hit|miss}, cache.evictions, cache.size
+ */
+@Component
+public class TermCache {
+
+    private static final String CHANNEL_COLLECTION = "termCacheInvalidations";
+
+    private final Firestore firestore;
+    private final Cache<String, DocumentSnapshot> cache;
+    private final boolean channelEnabled;
+    private final long channelRetentionMillis;
+    private final String instanceId = UUID.randomUUID().toString();
+
+    // 무효화마다 증가. 읽기 시작 시점과 값이 다르면 그 사이에 쓰기가 있었던 것
+    private final AtomicLong generation = new AtomicLong();
+    private final List<Consumer<List<String>>> remoteListeners = new CopyOnWriteArrayList<>();
+    private ListenerRegistration registration;
+
+    public TermCache(Firestore firestore,
+                     MeterRegistry meterRegistry,
+                     @Value("${term.cache.maximum-size:10000}") long maximumSize,
+                     @Value("${term.cache.ttl-seconds:30}") long ttlSeconds,
+                     @Value("${term.cache.invalidation-channel.enabled:false}") boolean channelEnabled,
+                     @Value("${term.cache.invalidation-channel.retention-seconds:3600}") long channelRetentionSeconds) {
+        this.firestore = firestore;
+        this.channelEnabled = channelEnabled;
+        this.channelRetentionMillis = TimeUnit.SECONDS.toMillis(channelRetentionSeconds);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "termById");
+    }
+
+    @PostConstruct
+    public void listen() {
+        if (!channelEnabled) {
+            return;
+        }
+        registration = firestore.collection(CHANNEL_COLLECTION)
+                .whereGreaterThan("at", Timestamp.now())
+                .addSnapshotListener((snapshot, error) -> {
+                    if (error != null || snapshot == null) {
+                        // 리스너가 끊기면 다른 인스턴스의 쓰기를 놓칠 수 있으므로 전부 비운다
+                        System.out.println("##### term cache invalidation listener error: " + error + " #####");
+                        invalidateAllLocally();
+                        return;
+                    }
+                    for (DocumentChange change : snapshot.getDocumentChanges()) {
+                        QueryDocumentSnapshot document = change.getDocument();
+                        if (change.getType() != DocumentChange.Type.ADDED || instanceId.equals(document.getString("instance"))) {
+                            continue;
+                        }
+                        Object ids = document.get("ids");
+                        if (ids instanceof List) {
+                            generation.incrementAndGet();
+                            List<String> invalidated = new ArrayList<>();
+                            for (Object id : (List<?>) ids) {
+                                invalidated.add(String.valueOf(id));
+                            }
+                            cache.invalidateAll(invalidated);
+                            for (Consumer<List<String>> listener : remoteListeners) {
+                                listener.accept(invalidated);
+                            }
+                        }
+                    }
+                });
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (registration != null) {
+            registration.remove();
+        }
+    }
+
+    // 다른 인스턴스가 쓴 문서 ID 를 받을 리스너. 채널의 snapshot listener 스레드에서 호출되므로 오래 걸리는 일은 넘겨서 처리해야 한다
+    public void onRemoteInvalidation(Consumer<List<String>> listener) {
+        remoteListeners.add(listener);
+    }
+
+    public long generation() {
+        return generation.get();
+    }
+
+    public DocumentSnapshot getIfPresent(String id) {
+        return cache.getIfPresent(id);
+    }
+
+    // startGeneration 은 Firestore 에서 읽기 전에 generation() 으로 받은 값
+    public void put(String id, DocumentSnapshot snapshot, long startGeneration) {
+        if (generation.get() == startGeneration) {
+            cache.put(id, snapshot);
+        }
+    }
+
+    public void invalidate(String... ids) {
+        List<String> list = new ArrayList<>();
+        for (String id : ids) {
+            if (id != null) {
+                list.add(id);
+            }
+        }
+        invalidate(list);
+    }
+
+    public void invalidate(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        generation.incrementAndGet();
+        cache.invalidateAll(ids);
+        if (channelEnabled) {
+            publish(ids);
+        }
+    }
+
+    public void invalidateAllLocally() {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    // 다른 인스턴스에 알림. 응답을 기다리지 않으며, 실패하면 다른 인스턴스는 TTL 후 갱신된다
+    // expireAt 에 Firestore TTL 정책을 걸어 두면 오래된 알림이 자동으로 지워진다
+    private void publish(Collection<String> ids) {
+        Map<String, Object> message = new HashMap<>();
+        message.put("ids", new ArrayList<>(ids));
+        message.put("instance", instanceId);
+        message.put("at", FieldValue.serverTimestamp());
+        message.put("expireAt", new Date(System.currentTimeMillis() + channelRetentionMillis));
+        firestore.collection(CHANNEL_COLLECTION).add(message);
+    }
+}
@@ -0,0 +1,360 @@
+package self.domain;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 사용자별 유사 조항 색인 (인스턴스 메모리). GET /terms/{id}/similar 에서 조항마다 거의 같은 조항을 가진 다른 약관을 찾는다.
+ *
+ * - 조항: TermClauses.split 으로 나눈 조각 중 글자/숫자가 min-clause-length 이상인 것
+ * - 서명: 공백·문장부호를 뺀 글자 3-gram 집합의 MinHash 64개
+ * - LSH: 서명을 4개씩 16개 band 로 나눠 band 마다 bucket 에 넣는다. 유사도 0.5 안팎부터 같은 bucket 에 들어갈 확률이 높아지므로
+ *   모든 조항 쌍을 비교하지 않고 같은 bucket 의 후보만 서명으로 확인한다
+ * - TermRepository 의 저장/삭제가 끝날 때마다 TermIndexUpdates 의 전용 스레드에서 반영되고(MinHash 계산 포함),
+ *   기동 시 TermIndexRebuild 가 Firestore 에서 다시 채운다. 잠금은 TermSearchIndex 와 같이 사용자 단위 + 문서 ID 로 나눈 잠금
+ * - 지표: term.similar.clauses
+ *
+ * 다른 인스턴스의 쓰기는 검색 색인과 같이 무효화 채널로 받아 반영하고, 채널이 꺼져 있으면 다음 기동 때 반영된다.
+ */
+@Component
+public class TermClauseIndex {
+
+    private static final int HASHES = 64;
+    private static final int ROWS = 4;
+    private static final int BANDS = HASHES / ROWS;
+    private static final int SHINGLE = 3;
+    private static final int PREVIEW_LENGTH = 80;
+    private static final int MAX_MATCHES_PER_CLAUSE = 10;
+    private static final int DOCUMENT_LOCKS = 64;
+    private static final long[] SEEDS = new long[HASHES];
+
+    static {
+        for (int i = 0; i < HASHES; i++) {
+            SEEDS[i] = mix(0x9E3779B97F4A7C15L * (i + 1));
+        }
+    }
+
+    private final int minClauseLength;
+    private final ConcurrentMap<String, UserClauses> users = new ConcurrentHashMap<>();
+    // 문서 ID -> userId
+    private final ConcurrentMap<String, String> owners = new ConcurrentHashMap<>();
+
+    // 문서 ID 로 고르는 잠금, 재구성 중에 실시간으로 반영된 문서 ID (TermSearchIndex 와 같은 방식)
+    private final Object[] documentLocks = new Object[DOCUMENT_LOCKS];
+    private volatile Set<String> touchedDuringRebuild;
+
+    public TermClauseIndex(MeterRegistry meterRegistry,
+                           @Value("${term.similar.min-clause-length:20}") int minClauseLength) {
+        this.minClauseLength = minClauseLength;
+        for (int i = 0; i < documentLocks.length; i++) {
+            documentLocks[i] = new Object();
+        }
+        Gauge.builder("term.similar.clauses", this, index -> index.clauseCount()).register(meterRegistry);
+    }
+
+    public void index(Term term) {
+        if (term == null || term.getId() == null || term.getUserId() == null) {
+            return;
+        }
+        synchronized (lockFor(term.getId())) {
+            Set<String> touched = touchedDuringRebuild;
+            if (touched != null) {
+                touched.add(term.getId());
+            }
+            put(term);
+        }
+    }
+
+    public void remove(String id) {
+        if (id == null) {
+            return;
+        }
+        synchronized (lockFor(id)) {
+            Set<String> touched = touchedDuringRebuild;
+            if (touched != null) {
+                touched.add(id);
+            }
+            String userId = owners.remove(id);
+            UserClauses user = userId == null ? null : users.get(userId);
+            if (user != null) {
+                synchronized (user) {
+                    user.remove(id);
+                }
+            }
+        }
+    }
+
+    public void remove(Collection<String> ids) {
+        for (String id : ids) {
+            remove(id);
+        }
+    }
+
+    public void beginRebuild() {
+        touchedDuringRebuild = ConcurrentHashMap.newKeySet();
+    }
+
+    public void load(Term term) {
+        if (term == null || term.getId() == null || term.getUserId() == null) {
+            return;
+        }
+        synchronized (lockFor(term.getId())) {
+            Set<String> touched = touchedDuringRebuild;
+            if (touched != null && touched.contains(term.getId())) {
+                return;
+            }
+            put(term);
+        }
+    }
+
+    public void endRebuild() {
+        touchedDuringRebuild = null;
+    }
+
+    private Object lockFor(String id) {
+        return documentLocks[Math.floorMod(id.hashCode(), documentLocks.length)];
+    }
+
+    private void put(Term term) {
+        String previousUser = owners.put(term.getId(), term.getUserId());
+        if (previousUser != null && !previousUser.equals(term.getUserId())) {
+            UserClauses previous = users.get(previousUser);
+            if (previous != null) {
+                synchronized (previous) {
+                    previous.remove(term.getId());
+                }
+            }
+        }
+
+        Entry entry = new Entry(term.getId(), term.getTitle(), term.getGroupId(), term.getRisk(), clauses(term.getContent()));
+        UserClauses user = users.computeIfAbsent(term.getUserId(), key -> new UserClauses());
+        synchronized (user) {
+            user.remove(term.getId());
+            user.add(entry);
+        }
+    }
+
+    /**
+     * term 의 조항마다 사용자의 다른 약관에서 추정 유사도가 threshold 이상인 조항을 찾는다.
+     * includeVersions 가 false 이면 같은 버전 체인(groupId)의 다른 버전은 제외한다.
+     */
+    public TermSimilarClauses similar(Term term, double threshold, boolean includeVersions) {
+        List<Clause> clauses = clauses(term.getContent());
+        List<TermSimilarClauses.Clause> result = new ArrayList<>();
+        UserClauses user = users.get(term.getUserId());
+        if (user == null) {
+            return new TermSimilarClauses(term.getId(), result);
+        }
+
+        synchronized (user) {
+            for (Clause clause : clauses) {
+                Map<Ref, Boolean> seen = new IdentityHashMap<>();
+                List<TermSimilarClauses.Match> matches = new ArrayList<>();
+                for (long bandKey : clause.bandKeys) {
+                    for (Ref ref : user.buckets.getOrDefault(bandKey, Collections.emptyList())) {
+                        if (ref.entry.id.equals(term.getId()) || seen.put(ref, Boolean.TRUE) != null) {
+                            continue;
+                        }
+                        if (!includeVersions && term.getGroupId() != null && term.getGroupId().equals(ref.entry.groupId)) {
+                            continue;
+                        }
+                        double similarity = estimate(clause.signature, ref.clause.signature);
+                        if (similarity >= threshold) {
+                            matches.add(new TermSimilarClauses.Match(ref.entry.id, ref.entry.title, ref.clause.number,
+                                    ref.clause.preview, similarity, ref.entry.risk));
+                        }
+                    }
+                }
+                if (!matches.isEmpty()) {
+                    matches.sort(Comparator.comparingDouble(TermSimilarClauses.Match::getSimilarity).reversed()
+                            .thenComparing(TermSimilarClauses.Match::getTermId));
+                    result.add(new TermSimilarClauses.Clause(clause.number, clause.preview,
+                            new ArrayList<>(matches.subList(0, Math.min(matches.size(), MAX_MATCHES_PER_CLAUSE)))));
+                }
+            }
+        }
+        return new TermSimilarClauses(term.getId(), result);
+    }
+
+    private long clauseCount() {
+        long count = 0;
+        for (UserClauses user : users.values()) {
+            synchronized (user) {
+                for (Entry entry : user.terms.values()) {
+                    count += entry.clauses.size();
+                }
+            }
+        }
+        return count;
+    }
+
+    private List<Clause> clauses(String content) {
+        List<Clause> clauses = new ArrayList<>();
+        List<String> pieces = TermClauses.split(content);
+        for (int number = 0; number < pieces.size(); number++) {
+            String piece = pieces.get(number);
+            String normalized = normalize(piece);
+            if (normalized.length() < Math.max(minClauseLength, SHINGLE)) {
+                continue;
+            }
+            int[] signature = signature(normalized);
+            String preview = piece.strip();
+            if (preview.length() > PREVIEW_LENGTH) {
+                preview = preview.substring(0, PREVIEW_LENGTH);
+            }
+            clauses.add(new Clause(number, preview, signature, bandKeys(signature)));
+        }
+        return clauses;
+    }
+
+    // 글자/숫자만 남긴다 (띄어쓰기나 문장부호만 다른 조항도 같은 조항으로 본다)
+    private static String normalize(String text) {
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        StringBuilder builder = new StringBuilder(normalized.length());
+        for (int i = 0; i < normalized.length(); i++) {
+            char c = normalized.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+
+    private static int[] signature(String normalized) {
+        int[] signature = new int[HASHES];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        for (int i = 0; i + SHINGLE <= normalized.length(); i++) {
+            long shingle = 0xcbf29ce484222325L;
+            for (int j = i; j < i + SHINGLE; j++) {
+                shingle = (shingle ^ normalized.charAt(j)) * 0x100000001b3L;
+            }
+            for (int h = 0; h < HASHES; h++) {
+                int value = (int) (mix(shingle ^ SEEDS[h]) >>> 33);
+                if (value < signature[h]) {
+                    signature[h] = value;
+                }
+            }
+        }
+        return signature;
+    }
+
+    private static long[] bandKeys(int[] signature) {
+        long[] keys = new long[BANDS];
+        for (int band = 0; band < BANDS; band++) {
+            long key = band;
+            for (int row = 0; row < ROWS; row++) {
+                key = mix(key * 31 + signature[band * ROWS + row]);
+            }
+            keys[band] = key;
+        }
+        return keys;
+    }
+
+    private static double estimate(int[] a, int[] b) {
+        int equal = 0;
+        for (int i = 0; i < HASHES; i++) {
+            if (a[i] == b[i]) {
+                equal++;
+            }
+        }
+        return (double) equal / HASHES;
+    }
+
+    // splitmix64 finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static class Clause {
+        private final int number;
+        private final String preview;
+        private final int[] signature;
+        private final long[] bandKeys;
+
+        Clause(int number, String preview, int[] signature, long[] bandKeys) {
+            this.number = number;
+            this.preview = preview;
+            this.signature = signature;
+            this.bandKeys = bandKeys;
+        }
+    }
+
+    private static class Entry {
+        private final String id;
+        private final String title;
+        private final String groupId;
+        private final String risk;
+        private final List<Clause> clauses;
+
+        Entry(String id, String title, String groupId, String risk, List<Clause> clauses) {
+            this.id = id;
+            this.title = title;
+            this.groupId = groupId;
+            this.risk = risk;
+            this.clauses = clauses;
+        }
+    }
+
+    private static class Ref {
+        private final Entry entry;
+        private final Clause clause;
+
+        Ref(Entry entry, Clause clause) {
+            this.entry = entry;
+            this.clause = clause;
+        }
+    }
+
+    // 한 사용자의 조항 색인. 모든 접근은 이 객체로 동기화한다
+    private static class UserClauses {
+        private final Map<String, Entry> terms = new HashMap<>();
+        private final Map<Long, List<Ref>> buckets = new HashMap<>();
+
+        void add(Entry entry) {
+            terms.put(entry.id, entry);
+            for (Clause clause : entry.clauses) {
+                Ref ref = new Ref(entry, clause);
+                for (long key : clause.bandKeys) {
+                    buckets.computeIfAbsent(key, k -> new ArrayList<>(2)).add(ref);
+                }
+            }
+        }
+
+        void remove(String id) {
+            Entry entry = terms.remove(id);
+            if (entry == null) {
+                return;
+            }
+            for (Clause clause : entry.clauses) {
+                for (long key : clause.bandKeys) {
+                    List<Ref> bucket = buckets.get(key);
+                    if (bucket != null) {
+                        bucket.removeIf(ref -> ref.entry == entry);
+                        if (bucket.isEmpty()) {
+                            buckets.remove(key);
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
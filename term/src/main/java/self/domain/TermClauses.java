@@ -0,0 +1,87 @@
+package self.domain;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 약관 본문을 조항·문장 단위로 나눈다. (차이 비교의 clause 단위, 유사 조항 색인에서 사용)
+ *
+ * 줄바꿈, 문장 끝(. 。 ? ! 뒤 공백), 조항 제목("제N조(", "제N조의M(") 앞, 항 번호(①~⑳) 앞에서 나누며
+ * 공백과 줄바꿈도 조각에 포함하므로 조각을 이으면 원문이 그대로 나온다.
+ */
+public final class TermClauses {
+
+    private TermClauses() {
+    }
+
+    public static List<String> split(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        int start = 0;
+        int i = 0;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (i > start && (isArticleHeading(text, i) || isCircledNumber(c))) {
+                tokens.add(text.substring(start, i));
+                start = i;
+            }
+            i++;
+            if (c == '\n') {
+                tokens.add(text.substring(start, i));
+                start = i;
+            } else if ((c == '.' || c == '。' || c == '?' || c == '!')
+                    && i < text.length() && Character.isWhitespace(text.charAt(i))) {
+                // 문장 끝 뒤의 공백(줄바꿈 포함 한 개까지)은 앞 문장에 붙인다
+                while (i < text.length() && Character.isWhitespace(text.charAt(i))) {
+                    if (text.charAt(i++) == '\n') {
+                        break;
+                    }
+                }
+                tokens.add(text.substring(start, i));
+                start = i;
+            }
+        }
+        if (start < text.length()) {
+            tokens.add(text.substring(start));
+        }
+        return tokens;
+    }
+
+    private static boolean isCircledNumber(char c) {
+        return c >= '①' && c <= '⑳';
+    }
+
+    // "제3조(목적)", "제12조의2(정의)" 처럼 조항 제목이 시작되는 위치. 본문 속 "제3조에 따라" 는 나누지 않는다
+    private static boolean isArticleHeading(String text, int i) {
+        if (text.charAt(i) != '제') {
+            return false;
+        }
+        int j = i + 1;
+        while (j < text.length() && text.charAt(j) == ' ') {
+            j++;
+        }
+        int digits = j;
+        while (j < text.length() && Character.isDigit(text.charAt(j))) {
+            j++;
+        }
+        if (j == digits) {
+            return false;
+        }
+        while (j < text.length() && text.charAt(j) == ' ') {
+            j++;
+        }
+        if (j >= text.length() || text.charAt(j) != '조') {
+            return false;
+        }
+        j++;
+        if (j < text.length() && text.charAt(j) == '의') {
+            j++;
+            while (j < text.length() && Character.isDigit(text.charAt(j))) {
+                j++;
+            }
+        }
+        return j < text.length() && text.charAt(j) == '(';
+    }
+}
@@ -0,0 +1,144 @@
+package self.domain;
+
+import com.google.api.gax.rpc.StatusCode;
+import com.google.cloud.firestore.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * 압축 저장(TermCompressionStore)이 생기기 전에 저장된 약관 문서의 큰 필드를 압축본으로 옮기는 작업.
+ * term.storage.compression.enabled 와 migrate-on-startup 이 모두 true 이면 애플리케이션이 준비된 뒤 별도 스레드에서 한 번 실행된다.
+ *
+ * 1. 전체 문서를 페이지 단위로 읽되 content, requirement, feedback 필드만 가져온다
+ * 2. threshold 이상인 필드만 {필드}Blob 으로 바꾸고 원래 필드는 지운다 (update 이므로 다른 필드는 건드리지 않음)
+ * 3. 읽은 뒤 다른 요청이 문서를 바꿨으면 update 가 실패하도록 updateTime 을 전제 조건으로 건다.
+ *    그런 문서는 새로 저장될 때 이미 압축되므로 건너뛴다
+ *
+ * 이미 압축된 문서는 건드리지 않으므로 여러 번 실행해도 안전하다.
+ */
+@Component
+public class TermCompressionMigration {
+
+    private static final int MAX_BATCH_SIZE = 500;
+
+    @Autowired
+    private Firestore firestore;
+
+    @Autowired
+    private TermCache termCache;
+
+    @Autowired
+    private TermCompressionStore termCompressionStore;
+
+    @Value("${term.storage.compression.migrate-on-startup:false}")
+    private boolean enabled;
+
+    @Value("${term.storage.compression.migration-page-size:100}")
+    private int pageSize;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled || !termCompressionStore.isEnabled()) {
+            return;
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                int migrated = migrate();
+                System.out.println("##### term compression migration finished: " + migrated + " documents compressed #####");
+            } catch (Exception e) {
+                System.out.println("##### term compression migration failed: " + e.getMessage() + " #####");
+                e.printStackTrace();
+            }
+        }, "term-compression-migration");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public int migrate() throws ExecutionException, InterruptedException {
+        Query page = firestore.collection(TermRepository.COLLECTION_NAME)
+                .select(TermCompressionStore.FIELDS)
+                .orderBy(FieldPath.documentId())
+                .limit(pageSize);
+        List<Update> pending = new ArrayList<>();
+        int migrated = 0;
+        DocumentSnapshot last = null;
+        while (true) {
+            Query query = last == null ? page : page.startAfter(last);
+            List<QueryDocumentSnapshot> documents = query.get().get().getDocuments();
+            for (QueryDocumentSnapshot document : documents) {
+                Map<String, Object> fields = termCompressionStore.migrationUpdate(document);
+                if (!fields.isEmpty()) {
+                    pending.add(new Update(document.getReference(), fields, Precondition.updatedAt(document.getUpdateTime())));
+                }
+                if (pending.size() == MAX_BATCH_SIZE) {
+                    migrated += commit(pending);
+                    pending.clear();
+                }
+            }
+            if (documents.size() < pageSize) {
+                break;
+            }
+            last = documents.get(documents.size() - 1);
+        }
+        if (!pending.isEmpty()) {
+            migrated += commit(pending);
+        }
+        return migrated;
+    }
+
+    // 한 batch 로 커밋하고, 바뀐 문서가 섞여 batch 가 실패하면 문서별로 다시 시도한다
+    private int commit(List<Update> updates) throws ExecutionException, InterruptedException {
+        WriteBatch batch = firestore.batch();
+        List<String> ids = new ArrayList<>();
+        for (Update update : updates) {
+            batch.update(update.ref, update.fields, update.precondition);
+            ids.add(update.ref.getId());
+        }
+        int committed = 0;
+        try {
+            batch.commit().get();
+            committed = updates.size();
+        } catch (ExecutionException e) {
+            if (!isFailedPrecondition(e)) {
+                throw e;
+            }
+            for (Update update : updates) {
+                try {
+                    update.ref.update(update.fields, update.precondition).get();
+                    committed++;
+                } catch (ExecutionException single) {
+                    if (!isFailedPrecondition(single)) {
+                        throw single;
+                    }
+                }
+            }
+        } finally {
+            termCache.invalidate(ids);
+        }
+        return committed;
+    }
+
+    private static boolean isFailedPrecondition(ExecutionException e) {
+        return FirestoreFutures.hasStatus(e, StatusCode.Code.FAILED_PRECONDITION);
+    }
+
+    private static class Update {
+        private final DocumentReference ref;
+        private final Map<String, Object> fields;
+        private final Precondition precondition;
+
+        Update(DocumentReference ref, Map<String, Object> fields, Precondition precondition) {
+            this.ref = ref;
+            this.fields = fields;
+            this.precondition = precondition;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package self.domain;
+
+import com.google.cloud.firestore.Blob;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FieldValue;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * content, requirement, feedback 중 threshold-bytes(UTF-8) 이상인 필드를 deflate 로 압축해 {필드}Blob 에 저장하는 선택적 저장 방식.
+ * term.storage.compression.enabled=true 일 때 저장 시 적용되고, 읽을 때는 TermRepository 가 문서를 Term 으로 바꾸면서 복원한다.
+ *
+ * - blob 형식: 첫 바이트 1(deflate, zlib 헤더 포함) + 압축 데이터
+ * - 압축해도 원래 크기의 90% 이상이면 압축하지 않고 그대로 저장한다
+ * - 목록 조회(TermSummary)는 이 필드들을 읽지 않으므로 압축 해제도 하지 않는다.
+ *   findById 캐시는 Firestore 문서를 그대로 보관하므로 캐시 메모리도 압축된 크기만 쓴다
+ * - 지표: term.storage.compression.ratio (압축 후/전), term.storage.compression.bytes{stage=original|stored},
+ *   term.storage.codec{operation=compress|decompress} (스레드 CPU 시간)
+ *
+ * 설정을 꺼도 압축된 문서는 그대로 읽을 수 있다. 기존 문서는 TermCompressionMigration 으로 옮긴다.
+ */
+@Component
+public class TermCompressionStore {
+
+    static final String[] FIELDS = {"content", "requirement", "feedback"};
+
+    private static final byte FORMAT_DEFLATE = 1;
+
+    private final boolean enabled;
+    private final int thresholdBytes;
+    private final int level;
+    private final DistributionSummary ratio;
+    private final Counter originalBytes;
+    private final Counter storedBytes;
+    private final Timer compressTime;
+    private final Timer decompressTime;
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private final boolean threadCpuTime = threads.isCurrentThreadCpuTimeSupported() && threads.isThreadCpuTimeEnabled();
+
+    public TermCompressionStore(MeterRegistry meterRegistry,
+                                @Value("${term.storage.compression.enabled:false}") boolean enabled,
+                                @Value("${term.storage.compression.threshold-bytes:4096}") int thresholdBytes,
+                                @Value("${term.storage.compression.level:6}") int level) {
+        this.enabled = enabled;
+        this.thresholdBytes = thresholdBytes;
+        this.level = level;
+        this.ratio = DistributionSummary.builder("term.storage.compression.ratio").register(meterRegistry);
+        this.originalBytes = Counter.builder("term.storage.compression.bytes").tag("stage", "original").register(meterRegistry);
+        this.storedBytes = Counter.builder("term.storage.compression.bytes").tag("stage", "stored").register(meterRegistry);
+        this.compressTime = Timer.builder("term.storage.codec").tag("operation", "compress").register(meterRegistry);
+        this.decompressTime = Timer.builder("term.storage.codec").tag("operation", "decompress").register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 큰 필드를 압축해 {필드}Blob 에 넣고 원래 필드를 비운다. 압축하지 않는 필드의 blob 은 null 로 둔다.
+     * (저장할 때만 TermRepository 가 호출하고, 저장이 끝나면 원래 값으로 되돌린다)
+     */
+    public void compress(Term term) {
+        term.setContentBlob(compress(term.getContent()));
+        if (term.getContentBlob() != null) {
+            term.setContent(null);
+        }
+        term.setRequirementBlob(compress(term.getRequirement()));
+        if (term.getRequirementBlob() != null) {
+            term.setRequirement(null);
+        }
+        term.setFeedbackBlob(compress(term.getFeedback()));
+        if (term.getFeedbackBlob() != null) {
+            term.setFeedback(null);
+        }
+    }
+
+    // 압축된 필드를 복원하고 blob 은 비운다
+    public void decompress(Term term) {
+        if (term.getContentBlob() != null) {
+            term.setContent(decompress(term.getContentBlob()));
+            term.setContentBlob(null);
+        }
+        if (term.getRequirementBlob() != null) {
+            term.setRequirement(decompress(term.getRequirementBlob()));
+            term.setRequirementBlob(null);
+        }
+        if (term.getFeedbackBlob() != null) {
+            term.setFeedback(decompress(term.getFeedbackBlob()));
+            term.setFeedbackBlob(null);
+        }
+    }
+
+    /**
+     * 필드 하나를 저장 형식(압축하면 {필드}Blob, 아니면 필드 그대로)으로 바꾸는 update 필드 목록. 문서 일부만 갱신할 때 쓴다
+     */
+    public Map<String, Object> storedFields(String field, String value) {
+        Map<String, Object> fields = new HashMap<>();
+        Blob blob = compress(value);
+        fields.put(field, blob == null ? value : FieldValue.delete());
+        fields.put(field + "Blob", blob == null ? FieldValue.delete() : blob);
+        return fields;
+    }
+
+    /**
+     * 압축되지 않은 큰 필드를 압축 형식으로 바꾸는 update 필드 목록 (바꿀 필드가 없으면 빈 Map). 기존 문서 이전용
+     */
+    public Map<String, Object> migrationUpdate(DocumentSnapshot document) {
+        Map<String, Object> fields = new HashMap<>();
+        for (String field : FIELDS) {
+            Blob blob = compress(document.getString(field));
+            if (blob != null) {
+                fields.put(field, FieldValue.delete());
+                fields.put(field + "Blob", blob);
+            }
+        }
+        return fields;
+    }
+
+    private Blob compress(String text) {
+        if (!enabled || text == null) {
+            return null;
+        }
+        byte[] raw = text.getBytes(StandardCharsets.UTF_8);
+        if (raw.length < thresholdBytes) {
+            return null;
+        }
+        long start = cpuTime();
+        Deflater deflater = new Deflater(level);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 3 + 16);
+        try {
+            out.write(FORMAT_DEFLATE);
+            deflater.setInput(raw);
+            deflater.finish();
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+        } finally {
+            deflater.end();
+            compressTime.record(cpuTime() - start, TimeUnit.NANOSECONDS);
+        }
+        if (out.size() >= raw.length * 0.9) {
+            return null;
+        }
+        ratio.record((double) out.size() / raw.length);
+        originalBytes.increment(raw.length);
+        storedBytes.increment(out.size());
+        return Blob.fromBytes(out.toByteArray());
+    }
+
+    private String decompress(Blob blob) {
+        byte[] stored = blob.toBytes();
+        if (stored.length == 0 || stored[0] != FORMAT_DEFLATE) {
+            throw new IllegalStateException("Unsupported compressed field format");
+        }
+        long start = cpuTime();
+        Inflater inflater = new Inflater();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(stored.length * 4);
+        try {
+            inflater.setInput(stored, 1, stored.length - 1);
+            byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                int inflated = inflater.inflate(buffer);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalStateException("Truncated compressed field");
+                }
+                out.write(buffer, 0, inflated);
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupted compressed field", e);
+        } finally {
+            inflater.end();
+            decompressTime.record(cpuTime() - start, TimeUnit.NANOSECONDS);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    // 압축/해제는 CPU 만 쓰므로 가능하면 스레드 CPU 시간으로 잰다
+    private long cpuTime() {
+        return threadCpuTime ? threads.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+}
@@ -0,0 +1,143 @@
+package self.domain;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * 버전 문서의 content 를 원본(origin) 대비 차이(delta)로만 저장하는 선택적 저장 방식.
+ * term.storage.delta.enabled=true 일 때 새 버전 저장 시 적용되고, 읽을 때는 TermRepository 가 투명하게 복원한다.
+ *
+ * - delta 형식: "d1:{공통 앞부분 길이}:{공통 뒷부분 길이}:{바뀐 가운데 부분}" (조항 하나를 고친 경우 수십~수백 자)
+ * - snapshot-interval 번째 버전마다, 또는 delta 가 원문의 절반보다 크면(AI 전체 재작성 등) 전체 content 를 저장한다
+ * - 복원한 content 는 문서 ID 기준으로 캐시한다. 저장된 버전의 content 는 바뀌지 않으므로(수정은 항상 새 버전) 보통은 무효화가 필요 없고,
+ *   문서를 통째로 다시 쓰는 경우(가져오기)에만 evict 로 비운다. 가져오기는 이미 있는 문서의 content 를 바꾸지 못하므로
+ *   그 문서를 base 로 삼은 delta 도 그대로 유효하다 (TermTransferService)
+ * - 지표: cache.gets{cache=termContent}
+ *
+ * 기존 문서와 delta 를 쓰지 않는 문서는 content 가 그대로 저장되어 있으므로 설정을 꺼도 모두 읽을 수 있다.
+ */
+@Component
+public class TermDeltaStore {
+
+    private static final String FORMAT = "d1";
+
+    private final boolean enabled;
+    private final int snapshotInterval;
+    private final Cache<String, String> reconstructed;
+
+    public TermDeltaStore(MeterRegistry meterRegistry,
+                          @Value("${term.storage.delta.enabled:false}") boolean enabled,
+                          @Value("${term.storage.delta.snapshot-interval:10}") int snapshotInterval,
+                          @Value("${term.storage.delta.cache-maximum-chars:16777216}") long cacheMaximumChars) {
+        this.enabled = enabled;
+        this.snapshotInterval = snapshotInterval;
+        this.reconstructed = Caffeine.newBuilder()
+                .maximumWeight(cacheMaximumChars)
+                .weigher((String id, String content) -> content.length())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, reconstructed, "termContent");
+    }
+
+    /**
+     * 새 버전을 base(원본) 대비 delta 로 저장할지 정하고 contentDelta/deltaBase/deltaDepth 를 설정한다.
+     * delta 로 저장하는 경우 true. (content 필드는 그대로 두며, 저장할 때 TermRepository 가 비운다)
+     */
+    public boolean encode(Term base, Term version) {
+        version.setContentDelta(null);
+        version.setDeltaBase(null);
+        version.setDeltaDepth(0);
+        if (!enabled || base == null || base.getId() == null || base.getContent() == null || version.getContent() == null) {
+            return false;
+        }
+        int depth = (base.getContentDelta() != null && base.getDeltaDepth() != null ? base.getDeltaDepth() : 0) + 1;
+        if (depth >= snapshotInterval) {
+            return false;
+        }
+        String delta = diff(base.getContent(), version.getContent());
+        if (delta.length() > version.getContent().length() / 2) {
+            return false;
+        }
+        version.setContentDelta(delta);
+        version.setDeltaBase(base.getId());
+        version.setDeltaDepth(depth);
+        reconstructed.put(version.getId(), version.getContent());
+        return true;
+    }
+
+    public static boolean isDelta(Term term) {
+        return term.getContentDelta() != null && term.getDeltaBase() != null;
+    }
+
+    /**
+     * delta 로 저장된 문서의 content 를 복원한다. loader 는 base 문서를 (이미 복원된 상태로) 읽어 오는 함수.
+     */
+    public CompletableFuture<Term> decode(Term term, Function<String, CompletableFuture<Optional<Term>>> loader) {
+        if (term.getContent() != null || !isDelta(term)) {
+            return CompletableFuture.completedFuture(term);
+        }
+        String cached = reconstructed.getIfPresent(term.getId());
+        if (cached != null) {
+            term.setContent(cached);
+            return CompletableFuture.completedFuture(term);
+        }
+        return loader.apply(term.getDeltaBase()).thenApply(base -> {
+            if (base.isEmpty() || base.get().getContent() == null) {
+                throw new IllegalStateException("Delta base " + term.getDeltaBase() + " of term " + term.getId() + " is missing.");
+            }
+            String content = apply(base.get().getContent(), term.getContentDelta());
+            reconstructed.put(term.getId(), content);
+            term.setContent(content);
+            return term;
+        });
+    }
+
+    public void evict(Collection<String> ids) {
+        reconstructed.invalidateAll(ids);
+    }
+
+    public CompletableFuture<List<Term>> decodeAll(List<Term> terms, Function<String, CompletableFuture<Optional<Term>>> loader) {
+        List<CompletableFuture<Term>> decoded = new ArrayList<>();
+        for (Term term : terms) {
+            decoded.add(decode(term, loader));
+        }
+        return CompletableFuture.allOf(decoded.toArray(new CompletableFuture[0])).thenApply(ignored -> terms);
+    }
+
+    static String diff(String base, String target) {
+        int prefix = 0;
+        int max = Math.min(base.length(), target.length());
+        while (prefix < max && base.charAt(prefix) == target.charAt(prefix)) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < max - prefix
+                && base.charAt(base.length() - 1 - suffix) == target.charAt(target.length() - 1 - suffix)) {
+            suffix++;
+        }
+        return FORMAT + ":" + prefix + ":" + suffix + ":" + target.substring(prefix, target.length() - suffix);
+    }
+
+    static String apply(String base, String delta) {
+        int first = delta.indexOf(':');
+        int second = delta.indexOf(':', first + 1);
+        int third = delta.indexOf(':', second + 1);
+        if (first < 0 || second < 0 || third < 0 || !FORMAT.equals(delta.substring(0, first))) {
+            throw new IllegalStateException("Unsupported content delta format");
+        }
+        int prefix = Integer.parseInt(delta.substring(first + 1, second));
+        int suffix = Integer.parseInt(delta.substring(second + 1, third));
+        return base.substring(0, prefix) + delta.substring(third + 1) + base.substring(base.length() - suffix);
+    }
+}
@@ -0,0 +1,47 @@
+package self.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * GET /terms/{id}/diff 의 응답. 두 버전 content 의 차이를 바뀐 부분(hunk)과 앞뒤 context 토큰만으로 표현한다.
+ *
+ * - granularity: line | word | clause (토큰 단위). 위치와 개수는 모두 0부터 시작하는 토큰 인덱스 기준
+ * - changes 의 op: "=" (그대로), "-" (from 에만 있음), "+" (to 에만 있음). text 를 순서대로 이으면 원문이 된다
+ * - approximate: 시간 제한을 넘겨 일부 구간을 통째로 삭제+삽입으로 처리한 경우 true (결과는 맞지만 최소 차이가 아닐 수 있음)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TermDiff {
+
+    private String from;
+    private String to;
+    private String granularity;
+    private int deletions;
+    private int insertions;
+    private boolean approximate;
+    private List<Hunk> hunks;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Hunk {
+        private int fromStart;
+        private int fromCount;
+        private int toStart;
+        private int toCount;
+        private List<Change> changes;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Change {
+        private String op;
+        private String text;
+    }
+}
@@ -0,0 +1,170 @@
+package self.domain;
+
+import com.google.cloud.firestore.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * groupId, latest, versionNumber 필드가 생기기 전에 저장된 약관 문서에 세 필드를 채우는 일회성 작업.
+ * createdAt 이 없는 문서도 함께 채운다. 목록 페이지 조회(GET /terms)는 createdAt 으로 정렬하므로 이 필드가 없는 문서는 빠진다.
+ * term.group-backfill.enabled=true 로 기동하면 애플리케이션이 준비된 뒤 별도 스레드에서 한 번 실행된다.
+ *
+ * 1. 전체 문서를 페이지 단위로 읽되 origin, groupId, latest, version, versionNumber, createdAt 필드만 가져온다
+ * 2. origin 을 따라 메모리에서 루트를 찾는다 (이미 groupId 가 있는 조상을 만나면 그 값을 사용)
+ * 3. 다른 문서의 origin 으로 쓰이지 않는 문서를 최신 버전(latest=true)으로 본다
+ * 4. versionNumber 는 version 문자열("v3")에서 읽는다
+ * 5. createdAt 이 없으면 Firestore 문서 생성 시각으로 채운다
+ * 6. 네 필드 중 하나라도 없는 문서만 batch 로 갱신한다
+ *
+ * 이미 채워진 문서는 건드리지 않으므로 여러 번 실행해도 안전하다.
+ */
+@Component
+public class TermGroupBackfill {
+
+    private static final int MAX_BATCH_SIZE = 500;
+
+    @Autowired
+    private Firestore firestore;
+
+    @Autowired
+    private TermCache termCache;
+
+    @Value("${term.group-backfill.enabled:false}")
+    private boolean enabled;
+
+    @Value("${term.group-backfill.page-size:1000}")
+    private int pageSize;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) {
+            return;
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                int updated = backfill();
+                System.out.println("##### term group backfill finished: " + updated + " documents updated #####");
+            } catch (Exception e) {
+                System.out.println("##### term group backfill failed: " + e.getMessage() + " #####");
+            }
+        }, "term-group-backfill");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public int backfill() throws ExecutionException, InterruptedException {
+        Map<String, String> origins = new HashMap<>();
+        Map<String, String> groupIds = new HashMap<>();
+        Set<String> latestMissing = new HashSet<>();
+        Map<String, Long> versionNumbers = new HashMap<>();
+        Map<String, Date> createdAts = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+
+        Query page = firestore.collection(TermRepository.COLLECTION_NAME)
+                .select("origin", "groupId", "latest", "version", "versionNumber", "createdAt")
+                .orderBy(FieldPath.documentId())
+                .limit(pageSize);
+        DocumentSnapshot last = null;
+        while (true) {
+            Query query = last == null ? page : page.startAfter(last);
+            List<QueryDocumentSnapshot> documents = query.get().get().getDocuments();
+            for (QueryDocumentSnapshot document : documents) {
+                origins.put(document.getId(), document.getString("origin"));
+                String groupId = document.getString("groupId");
+                if (groupId != null) {
+                    groupIds.put(document.getId(), groupId);
+                }
+                if (document.getBoolean("latest") == null) {
+                    latestMissing.add(document.getId());
+                }
+                if (document.getLong("versionNumber") == null) {
+                    versionNumbers.put(document.getId(), TermRepository.parseVersionNumber(document.getString("version")));
+                }
+                if (document.get("createdAt") == null) {
+                    createdAts.put(document.getId(), document.getCreateTime().toDate());
+                }
+                if (groupId == null || document.getBoolean("latest") == null || document.getLong("versionNumber") == null
+                        || document.get("createdAt") == null) {
+                    missing.add(document.getId());
+                }
+            }
+            if (documents.size() < pageSize) {
+                break;
+            }
+            last = documents.get(documents.size() - 1);
+        }
+
+        // 번역본(origin 이 있지만 자기 체인의 루트인 문서)은 원본을 최신 버전에서 밀어내지 않는다
+        Set<String> parents = new HashSet<>();
+        origins.forEach((id, origin) -> {
+            if (origin != null && !id.equals(groupIds.get(id))) {
+                parents.add(origin);
+            }
+        });
+
+        WriteBatch batch = firestore.batch();
+        int inBatch = 0;
+        for (String id : missing) {
+            Map<String, Object> fields = new HashMap<>();
+            fields.put("groupId", resolveGroupId(id, origins, groupIds));
+            if (latestMissing.contains(id)) {
+                fields.put("latest", !parents.contains(id));
+            }
+            if (versionNumbers.containsKey(id)) {
+                fields.put("versionNumber", versionNumbers.get(id));
+            }
+            if (createdAts.containsKey(id)) {
+                fields.put("createdAt", createdAts.get(id));
+            }
+            batch.update(firestore.collection(TermRepository.COLLECTION_NAME).document(id), fields);
+            if (++inBatch == MAX_BATCH_SIZE) {
+                batch.commit().get();
+                batch = firestore.batch();
+                inBatch = 0;
+            }
+        }
+        if (inBatch > 0) {
+            batch.commit().get();
+        }
+        termCache.invalidateAllLocally();
+        return missing.size();
+    }
+
+    // origin 을 따라 올라가며 루트를 찾고, 지나온 문서들의 결과를 groupIds 에 기록해 다음 조회에 재사용한다
+    private String resolveGroupId(String id, Map<String, String> origins, Map<String, String> groupIds) {
+        List<String> path = new ArrayList<>();
+        String current = id;
+        String groupId;
+        while (true) {
+            String known = groupIds.get(current);
+            if (known != null) {
+                groupId = known;
+                break;
+            }
+            path.add(current);
+            String parent = origins.get(current);
+            // 루트이거나, 부모가 이미 삭제되었거나, origin 이 순환하는 경우 현재 문서를 루트로 본다
+            if (parent == null || !origins.containsKey(parent) || path.size() > origins.size()) {
+                groupId = current;
+                break;
+            }
+            current = parent;
+        }
+        for (String visited : path) {
+            groupIds.put(visited, groupId);
+        }
+        return groupId;
+    }
+}
@@ -0,0 +1,23 @@
+package self.domain;
+
+import lombok.Data;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * POST /terms/import 결과.
+ * resumeToken 을 다음 요청에 다시 넘기면 processedLines 까지는 건너뛰고 이어서 가져온다. (같은 파일을 처음부터 다시 보내면 됨)
+ */
+@Data
+public class TermImportResult {
+
+    private String resumeToken;
+    // 이번 요청에서 읽은 마지막 줄 번호 (건너뛴 줄 포함)
+    private long processedLines;
+    private long skippedLines;
+    private long imported;
+    private long failed;
+    // 줄 번호 또는 문서 ID -> 실패 사유 (앞의 일부만)
+    private Map<String, String> failures = new LinkedHashMap<>();
+}
@@ -0,0 +1,100 @@
+package self.domain;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * 기동 시 Firestore 의 전체 약관을 읽어 메모리 색인(TermSearchIndex, TermClauseIndex)을 채운다.
+ * 애플리케이션이 준비된 뒤 별도 스레드에서 문서 ID 순으로 page-size 개씩 읽으며, 그동안 들어온 저장/삭제는 색인이 먼저 반영한다.
+ * 검색 색인은 끝까지 읽었을 때만 ready 가 되며, 그 전에는 GET /terms/search 가 503 을 돌려준다.
+ * 도중에 실패하면 retry-backoff-millis 부터 두 배씩(최대 retry-max-backoff-millis) 기다렸다가 처음부터 다시 읽는다.
+ */
+@Component
+public class TermIndexRebuild {
+
+    @Autowired
+    private TermRepository termRepository;
+
+    @Autowired
+    private TermSearchIndex termSearchIndex;
+
+    @Autowired
+    private TermClauseIndex termClauseIndex;
+
+    @Value("${term.search.rebuild-on-startup:true}")
+    private boolean enabled;
+
+    @Value("${term.search.rebuild-page-size:500}")
+    private int pageSize;
+
+    @Value("${term.search.rebuild-retry-backoff-millis:1000}")
+    private long retryBackoffMillis;
+
+    @Value("${term.search.rebuild-retry-max-backoff-millis:60000}")
+    private long retryMaxBackoffMillis;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) {
+            termSearchIndex.markReady();
+            return;
+        }
+        Thread thread = new Thread(() -> {
+            // 실패하면(Firestore 일시 장애 등) 성공할 때까지 다시 읽는다. 그동안 검색은 503
+            long backoff = retryBackoffMillis;
+            while (true) {
+                try {
+                    int indexed = rebuild();
+                    System.out.println("##### term indexes rebuilt: " + indexed + " documents #####");
+                    return;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (Exception e) {
+                    System.out.println("##### term index rebuild failed, retrying in " + backoff + "ms: " + e.getMessage() + " #####");
+                    e.printStackTrace();
+                }
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                backoff = Math.min(backoff * 2, retryMaxBackoffMillis);
+            }
+        }, "term-index-rebuild");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public int rebuild() throws ExecutionException, InterruptedException {
+        termSearchIndex.beginRebuild();
+        termClauseIndex.beginRebuild();
+        int indexed = 0;
+        boolean completed = false;
+        try {
+            String last = null;
+            while (true) {
+                List<Term> terms = FirestoreFutures.await(termRepository.findAllAfterAsync(last, pageSize));
+                for (Term term : terms) {
+                    termSearchIndex.load(term);
+                    termClauseIndex.load(term);
+                }
+                indexed += terms.size();
+                if (terms.size() < pageSize) {
+                    completed = true;
+                    return indexed;
+                }
+                last = terms.get(terms.size() - 1).getId();
+            }
+        } finally {
+            termSearchIndex.endRebuild(completed);
+            termClauseIndex.endRebuild();
+        }
+    }
+}
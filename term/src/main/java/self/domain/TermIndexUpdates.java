@@ -0,0 +1,83 @@
+package self.domain;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.Collection;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 저장/삭제가 커밋된 뒤 메모리 색인(TermSearchIndex, TermClauseIndex)에 반영하는 작업을 전용 스레드에서 실행한다.
+ * 커밋 완료 콜백은 Firestore(gRPC) 스레드에서 불리므로, 토큰화나 MinHash 계산 같은 색인 작업이 그 스레드를 붙잡지 않도록 여기로 넘긴다.
+ *
+ * - 스레드: term.search.update-threads 개. 문서 ID 로 스레드를 고르므로 같은 문서의 저장/삭제는 받은 순서대로 반영된다
+ * - 다른 문서끼리는 동시에 반영되고, 색인 안에서는 사용자 단위로만 잠근다
+ */
+@Component
+public class TermIndexUpdates {
+
+    private final TermSearchIndex termSearchIndex;
+    private final TermClauseIndex termClauseIndex;
+    private final ExecutorService[] lanes;
+
+    public TermIndexUpdates(TermSearchIndex termSearchIndex,
+                            TermClauseIndex termClauseIndex,
+                            @Value("${term.search.update-threads:2}") int threads) {
+        this.termSearchIndex = termSearchIndex;
+        this.termClauseIndex = termClauseIndex;
+        this.lanes = new ExecutorService[Math.max(1, threads)];
+        for (int i = 0; i < lanes.length; i++) {
+            String name = "term-index-" + i;
+            lanes[i] = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        for (ExecutorService lane : lanes) {
+            lane.shutdownNow();
+        }
+    }
+
+    public void indexed(Term term) {
+        if (term == null || term.getId() == null) {
+            return;
+        }
+        run(term.getId(), () -> {
+            termSearchIndex.index(term);
+            termClauseIndex.index(term);
+        });
+    }
+
+    public void removed(Collection<String> ids) {
+        for (String id : ids) {
+            if (id != null) {
+                run(id, () -> {
+                    termSearchIndex.remove(id);
+                    termClauseIndex.remove(id);
+                });
+            }
+        }
+    }
+
+    private void run(String id, Runnable update) {
+        ExecutorService lane = lanes[Math.floorMod(id.hashCode(), lanes.length)];
+        if (lane.isShutdown()) {
+            return;
+        }
+        lane.execute(() -> {
+            try {
+                update.run();
+            } catch (RuntimeException e) {
+                System.out.println("##### term index update failed for " + id + ": " + e.getMessage() + " #####");
+                e.printStackTrace();
+            }
+        });
+    }
+}
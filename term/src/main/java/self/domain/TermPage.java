@@ -0,0 +1,19 @@
+package self.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * GET /terms?limit= 의 응답. nextCursor 를 다음 요청의 cursor 로 넘기면 이어서 조회한다. (마지막 페이지이면 null)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TermPage<T> {
+
+    private List<T> items;
+    private String nextCursor;
+}
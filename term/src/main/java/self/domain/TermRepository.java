@@ -1,41 +1,193 @@
 package self.domain;
 
 import com.google.api.core.ApiFuture;
+import com.google.api.gax.rpc.StatusCode;
 import com.google.cloud.firestore.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Repository
 public class TermRepository {
 
-    private static final String COLLECTION_NAME = "terms";
+    static final String COLLECTION_NAME = "terms";
+    // POST /terms/import 진행 상황 (재개 토큰 -> 처리한 줄 수)
+    private static final String IMPORT_COLLECTION_NAME = "termImports";
+    // 버전 체인(groupId)별 마지막 버전 번호와 최신 버전 ID
+    private static final String COUNTER_COLLECTION_NAME = "termVersionCounters";
+    // 재시도는 retryOnContention 이 backoff 를 두고 직접 한다
+    private static final TransactionOptions SINGLE_ATTEMPT = TransactionOptions.createReadWriteOptionsBuilder()
+            .setNumberOfAttempts(1)
+            .build();
+    // Firestore 한 번의 batch 에 넣을 수 있는 최대 쓰기 수
+    private static final int MAX_BATCH_SIZE = 500;
 
     @Autowired
     private Firestore firestore;
 
+    @Autowired
+    private TermCache termCache;
+
+    @Autowired
+    private TermDeltaStore termDeltaStore;
+
+    @Autowired
+    private TermCompressionStore termCompressionStore;
+
+    @Autowired
+    private TermIndexUpdates termIndexUpdates;
+
+    @Value("${term.version.max-attempts:5}")
+    private int versionMaxAttempts;
+
+    @Value("${term.version.backoff-millis:20}")
+    private long versionBackoffMillis;
+
+    @Value("${term.version.max-backoff-millis:500}")
+    private long versionMaxBackoffMillis;
+
+    // 저장하기 전에 문서 ID가 필요할 때 사용 (예: 새 버전 체인의 groupId)
+    public String newId() {
+        return firestore.collection(COLLECTION_NAME).document().getId();
+    }
+
     public Term save(Term term) throws ExecutionException, InterruptedException {
+        return FirestoreFutures.await(saveAsync(term));
+    }
+
+    public CompletableFuture<Term> saveAsync(Term term) {
         if (term.getId() == null || term.getId().isEmpty()) {
             // Create new document
-            DocumentReference docRef = firestore.collection(COLLECTION_NAME).document();
-            term.setId(docRef.getId());
+            term.setId(newId());
+        }
+        // delta 로 저장된 버전을 다시 저장하는 경우 base 대비 delta 를 다시 계산한다
+        CompletableFuture<Term> encoded = TermDeltaStore.isDelta(term)
+                ? findByIdAsync(term.getDeltaBase()).thenApply(base -> {
+                    termDeltaStore.encode(base.orElse(null), term);
+                    return term;
+                })
+                : CompletableFuture.completedFuture(term);
+        return encoded
+                .thenCompose(toSave -> FirestoreFutures.toCompletable(withStoredContent(toSave,
+                        () -> firestore.collection(COLLECTION_NAME).document(toSave.getId()).set(toSave))))
+                .thenApply(writeResult -> {
+                    termCache.invalidate(term.getId());
+                    indexed(term);
+                    return term;
+                });
+    }
+
+    // 새 문서로만 저장한다. 같은 ID 의 문서가 이미 있으면(Kafka 이벤트 재처리 등) 덮어쓰지 않고 그대로 완료한다
+    public CompletableFuture<Term> createIfAbsentAsync(Term term) {
+        if (term.getId() == null || term.getId().isEmpty()) {
+            term.setId(newId());
+        }
+        DocumentReference ref = firestore.collection(COLLECTION_NAME).document(term.getId());
+        return FirestoreFutures.toCompletable(withStoredContent(term, () -> ref.create(term)))
+                .thenApply(writeResult -> {
+                    termCache.invalidate(term.getId());
+                    indexed(term);
+                    return term;
+                })
+                .exceptionally(e -> {
+                    if (FirestoreFutures.hasStatus(e, StatusCode.Code.ALREADY_EXISTS)) {
+                        return term;
+                    }
+                    throw new CompletionException(FirestoreFutures.unwrap(e));
+                });
+    }
+
+    // delta 로 저장하는 문서는 content 를 비운 상태로 기록한다.
+    // Firestore 는 set() 을 호출하는 시점에 객체를 복사하므로 호출이 끝나면 바로 되돌려도 된다
+    private <T> T withStoredContent(Term term, Supplier<T> write) {
+        if (!TermDeltaStore.isDelta(term)) {
+            return withCompressedFields(term, write);
+        }
+        String content = term.getContent();
+        term.setContent(null);
+        try {
+            return withCompressedFields(term, write);
+        } finally {
+            term.setContent(content);
+        }
+    }
+
+    // 큰 content/requirement/feedback 은 압축본(blob)으로 바꾼 상태로 기록한다 (TermCompressionStore)
+    private <T> T withCompressedFields(Term term, Supplier<T> write) {
+        String content = term.getContent();
+        String requirement = term.getRequirement();
+        String feedback = term.getFeedback();
+        termCompressionStore.compress(term);
+        try {
+            return write.get();
+        } finally {
+            term.setContent(content);
+            term.setRequirement(requirement);
+            term.setFeedback(feedback);
+            term.setContentBlob(null);
+            term.setRequirementBlob(null);
+            term.setFeedbackBlob(null);
+        }
+    }
+
+    // 문서를 Term 으로 바꾸면서 압축된 필드를 복원한다 (delta 복원은 base 를 읽어야 하므로 decode 에서 따로 한다)
+    private Term toTerm(DocumentSnapshot document) {
+        Term term = document.toObject(Term.class);
+        if (term != null) {
+            termCompressionStore.decompress(term);
         }
-        firestore.collection(COLLECTION_NAME).document(term.getId()).set(term).get();
         return term;
     }
 
     public Optional<Term> findById(String id) throws ExecutionException, InterruptedException {
+        return FirestoreFutures.await(findByIdAsync(id));
+    }
+
+    // TermCache 를 먼저 확인하고, 없으면 Firestore 에서 읽어 캐시에 넣는다 (존재하지 않는 문서는 캐시하지 않음)
+    // delta 로 저장된 버전은 content 를 복원해서 돌려준다
+    public CompletableFuture<Optional<Term>> findByIdAsync(String id) {
+        DocumentSnapshot cached = termCache.getIfPresent(id);
+        if (cached != null) {
+            return decode(Optional.ofNullable(toTerm(cached)));
+        }
+
+        long startGeneration = termCache.generation();
         DocumentReference docRef = firestore.collection(COLLECTION_NAME).document(id);
-        ApiFuture<DocumentSnapshot> future = docRef.get();
-        DocumentSnapshot document = future.get();
-        if (document.exists()) {
-            return Optional.ofNullable(document.toObject(Term.class));
+        return FirestoreFutures.toCompletable(docRef.get()).thenCompose(document -> {
+            if (document.exists()) {
+                termCache.put(id, document, startGeneration);
+                return decode(Optional.ofNullable(toTerm(document)));
+            }
+            return CompletableFuture.completedFuture(Optional.<Term>empty());
+        });
+    }
+
+    private CompletableFuture<Optional<Term>> decode(Optional<Term> term) {
+        if (term.isEmpty()) {
+            return CompletableFuture.completedFuture(term);
         }
-        return Optional.empty();
+        return termDeltaStore.decode(term.get(), this::findByIdAsync).thenApply(Optional::of);
     }
 
     public void delete(Term term) {
@@ -43,28 +195,578 @@ public class TermRepository {
             return;
         }
         firestore.collection(COLLECTION_NAME).document(term.getId()).delete();
+        termCache.invalidate(term.getId());
+        removed(List.of(term.getId()));
     }
 
-    public List<Term> findByUserId(String userId) throws ExecutionException, InterruptedException {
-        ApiFuture<QuerySnapshot> future = firestore.collection(COLLECTION_NAME)
+    public Term saveNewVersion(Term originalTerm, Term newVersionTerm) throws ExecutionException, InterruptedException {
+        return FirestoreFutures.await(saveNewVersionAsync(originalTerm, newVersionTerm));
+    }
+
+    // 새 버전 저장, 체인 최신 버전의 latest=false 갱신, 버전 번호 할당을 한 트랜잭션으로 처리한다.
+    // 번호와 최신 버전은 groupId 별 카운터 문서(termVersionCounters/{groupId})에서 정한다.
+    // 새 버전의 content(와 delta)는 호출한 쪽이 읽은 원본으로 만든 것이므로, 커밋 시점의 최신 버전이 그 원본이 아니면
+    // (같은 버전을 두 사람이 동시에 고친 경우 등) 먼저 저장된 수정을 덮어쓰지 않도록 TermVersionConflictException 으로 실패한다.
+    // 카운터 경합으로 트랜잭션이 중단되면 잠깐 기다렸다가 다시 시도한다
+    public CompletableFuture<Term> saveNewVersionAsync(Term originalTerm, Term newVersionTerm) {
+        if (newVersionTerm.getId() == null || newVersionTerm.getId().isEmpty()) {
+            newVersionTerm.setId(newId());
+        }
+        DocumentReference originalRef = firestore.collection(COLLECTION_NAME).document(originalTerm.getId());
+        DocumentReference newRef = firestore.collection(COLLECTION_NAME).document(newVersionTerm.getId());
+        String groupId = newVersionTerm.getGroupId();
+        DocumentReference counterRef = groupId == null ? null : firestore.collection(COUNTER_COLLECTION_NAME).document(groupId);
+        newVersionTerm.setLatest(true);
+        termDeltaStore.encode(originalTerm, newVersionTerm);
+
+        return retryOnContention(() -> FirestoreFutures.toCompletable(firestore.runTransaction(transaction -> {
+            // 같은 ID 의 버전이 이미 있으면(Kafka 이벤트 재처리 등) 다시 만들지 않는다
+            if (transaction.get(newRef).get().exists()) {
+                return null;
+            }
+            DocumentSnapshot original = transaction.get(originalRef).get();
+            if (!original.exists()) {
+                throw new IllegalStateException("Original term has been deleted.");
+            }
+            // groupId 가 채워지기 전(백필 전)의 중간 버전은 카운터 없이 원본 다음 번호를 쓴다
+            VersionHead head = counterRef == null ? new VersionHead(original.getId(), versionNumberOf(original))
+                    : currentHead(transaction, counterRef, groupId, original);
+            if (!head.id.equals(original.getId())) {
+                throw new TermVersionConflictException(original.getId(), head.id);
+            }
+            long versionNumber = head.versionNumber + 1;
+            newVersionTerm.setVersion("v" + versionNumber);
+            newVersionTerm.setVersionNumber(versionNumber);
+            newVersionTerm.setOrigin(head.id);
+
+            // 백필 전의 루트에서 처음 갈라지는 체인이면 루트에도 groupId 를 기록해 그룹 조회/삭제에 포함되게 한다
+            boolean legacyRoot = groupId != null && groupId.equals(original.getId()) && original.getString("groupId") == null;
+            if (legacyRoot) {
+                transaction.update(originalRef, "latest", false, "groupId", groupId);
+            } else {
+                transaction.update(originalRef, "latest", false);
+            }
+            withStoredContent(newVersionTerm, () -> transaction.set(newRef, newVersionTerm));
+            if (counterRef != null) {
+                Map<String, Object> counter = new HashMap<>();
+                counter.put("versionNumber", versionNumber);
+                counter.put("latestId", newVersionTerm.getId());
+                transaction.set(counterRef, counter);
+            }
+            return head.id;
+        }, SINGLE_ATTEMPT)), 1).thenApply(headId -> {
+            if (headId == null) {
+                return newVersionTerm;
+            }
+            termCache.invalidate(originalTerm.getId(), headId, newVersionTerm.getId());
+            indexed(newVersionTerm);
+            originalTerm.setLatest(false);
+            return newVersionTerm;
+        });
+    }
+
+    // 카운터가 가리키는 체인의 최신 버전과 마지막 번호. 카운터가 없으면 체인 문서를 읽어 정한다 (그룹마다 처음 한 번)
+    private VersionHead currentHead(Transaction transaction, DocumentReference counterRef, String groupId,
+                                    DocumentSnapshot original) throws ExecutionException, InterruptedException {
+        DocumentSnapshot counter = transaction.get(counterRef).get();
+        if (counter.exists()) {
+            Long versionNumber = counter.getLong("versionNumber");
+            String latestId = counter.getString("latestId");
+            // 최신 버전이 트랜잭션 밖에서 지워졌으면 요청한 원본 뒤에 잇는다
+            boolean headExists = latestId != null && (latestId.equals(original.getId())
+                    || transaction.get(firestore.collection(COLLECTION_NAME).document(latestId)).get().exists());
+            return new VersionHead(headExists ? latestId : original.getId(),
+                    Math.max(versionNumber == null ? 0 : versionNumber, versionNumberOf(original)));
+        }
+
+        List<QueryDocumentSnapshot> versions = transaction.get(firestore.collection(COLLECTION_NAME)
+                .select("version", "versionNumber", "latest")
+                .whereEqualTo("userId", original.getString("userId"))
+                .whereEqualTo("groupId", groupId)).get().getDocuments();
+        List<DocumentSnapshot> chain = new ArrayList<>(versions);
+        // groupId 필드가 없는 루트(체인 ID 와 같은 문서)는 쿼리에 걸리지 않으므로 따로 읽는다
+        if (!groupId.equals(original.getId()) && versions.stream().noneMatch(version -> version.getId().equals(groupId))) {
+            DocumentSnapshot root = transaction.get(firestore.collection(COLLECTION_NAME).document(groupId)).get();
+            if (root.exists() && Objects.equals(root.getString("userId"), original.getString("userId"))) {
+                chain.add(root);
+            }
+        }
+        long maxNumber = versionNumberOf(original);
+        String headId = original.getId();
+        long headNumber = Boolean.FALSE.equals(original.getBoolean("latest")) ? -1 : maxNumber;
+        for (DocumentSnapshot version : chain) {
+            long number = versionNumberOf(version);
+            maxNumber = Math.max(maxNumber, number);
+            // 이미 갈라진 체인이면 latest 인 버전 중 번호가 가장 큰 것을 최신 버전으로 본다
+            if (!Boolean.FALSE.equals(version.getBoolean("latest")) && number > headNumber) {
+                headId = version.getId();
+                headNumber = number;
+            }
+        }
+        return new VersionHead(headId, maxNumber);
+    }
+
+    static boolean isChainRoot(DocumentSnapshot document) {
+        return document.getId().equals(document.getString("groupId"));
+    }
+
+    // versionNumber 가 없는 문서(이 필드가 생기기 전)는 "v3" 같은 version 문자열에서 번호를 읽는다
+    static long versionNumberOf(DocumentSnapshot document) {
+        Long versionNumber = document.getLong("versionNumber");
+        return versionNumber != null ? versionNumber : parseVersionNumber(document.getString("version"));
+    }
+
+    public static long parseVersionNumber(String version) {
+        if (version == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(version.startsWith("v") || version.startsWith("V") ? version.substring(1) : version);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    // Firestore 트랜잭션이 경합(ABORTED)으로 실패하면 지수 backoff(+jitter) 후 다시 시도한다
+    private <T> CompletableFuture<T> retryOnContention(Supplier<CompletableFuture<T>> attempt, int attemptNumber) {
+        return attempt.get().handle((result, error) -> {
+            if (error == null) {
+                return CompletableFuture.completedFuture(result);
+            }
+            Throwable cause = FirestoreFutures.unwrap(error);
+            if (attemptNumber >= versionMaxAttempts || !FirestoreFutures.hasStatus(cause, StatusCode.Code.ABORTED)) {
+                return CompletableFuture.<T>failedFuture(cause);
+            }
+            long backoff = Math.min(versionBackoffMillis << (attemptNumber - 1), versionMaxBackoffMillis);
+            long delay = ThreadLocalRandom.current().nextLong(backoff / 2, backoff + 1);
+            return CompletableFuture.runAsync(() -> { }, CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS))
+                    .thenCompose(ignored -> retryOnContention(attempt, attemptNumber + 1));
+        }).thenCompose(Function.identity());
+    }
+
+    public void deleteLatestVersion(Term term) throws ExecutionException, InterruptedException {
+        FirestoreFutures.await(deleteLatestVersionAsync(term));
+    }
+
+    // 최신 버전 하나를 삭제하고, 부모에 다른 자식이 없으면 부모를 다시 최신 버전으로 표시 (한 트랜잭션)
+    // 다른 버전의 origin 이면 IllegalStateException 으로 실패한다
+    public CompletableFuture<Void> deleteLatestVersionAsync(Term term) {
+        DocumentReference termRef = firestore.collection(COLLECTION_NAME).document(term.getId());
+        DocumentReference parentRef = term.getOrigin() == null ? null : firestore.collection(COLLECTION_NAME).document(term.getOrigin());
+        DocumentReference counterRef = term.getGroupId() == null ? null : firestore.collection(COUNTER_COLLECTION_NAME).document(term.getGroupId());
+
+        return FirestoreFutures.toCompletable(firestore.runTransaction(transaction -> {
+            DocumentSnapshot current = transaction.get(termRef).get();
+            if (!current.exists()) {
+                return null;
+            }
+            DocumentSnapshot counter = counterRef == null ? null : transaction.get(counterRef).get();
+            Boolean latest = current.getBoolean("latest");
+            // latest 가 채워지기 전의 문서만 자식 문서를 직접 조회해서 확인
+            boolean hasChildren = latest == null
+                    ? !transaction.get(firestore.collection(COLLECTION_NAME).whereEqualTo("origin", term.getId()).limit(1)).get().isEmpty()
+                    : !latest;
+            if (hasChildren) {
+                throw new InvalidTermRequestException("Cannot delete a version that is an origin for another version.");
+            }
+
+            // 번역본처럼 origin 이 있어도 자기 체인의 루트인 문서는 부모의 latest 를 바꾸지 않는다 (형제 판단에서도 제외)
+            boolean parentBecomesLatest = false;
+            if (parentRef != null && !isChainRoot(current) && transaction.get(parentRef).get().exists()) {
+                List<QueryDocumentSnapshot> siblings = transaction.get(firestore.collection(COLLECTION_NAME)
+                        .select("groupId")
+                        .whereEqualTo("origin", term.getOrigin())).get().getDocuments();
+                parentBecomesLatest = siblings.stream()
+                        .allMatch(sibling -> sibling.getId().equals(term.getId()) || isChainRoot(sibling));
+            }
+            transaction.delete(termRef);
+            if (parentBecomesLatest) {
+                transaction.update(parentRef, "latest", true);
+            }
+            // 카운터의 최신 버전을 부모로 되돌린다. 번호는 되돌리지 않으므로 삭제된 번호는 다시 쓰이지 않는다
+            if (counter != null && counter.exists() && term.getId().equals(counter.getString("latestId"))) {
+                transaction.update(counterRef, "latestId", parentBecomesLatest ? term.getOrigin() : FieldValue.delete());
+            }
+            return null;
+        })).thenAccept(ignored -> {
+            termCache.invalidate(term.getId(), term.getOrigin());
+            removed(List.of(term.getId()));
+        });
+    }
+
+    public TermBatchResult saveAll(List<Term> terms) throws ExecutionException, InterruptedException {
+        return FirestoreFutures.await(saveAllAsync(terms));
+    }
+
+    // 여러 문서를 batch 로 나누어 저장. 모든 batch 를 동시에 커밋하고, 전부 끝나면 완료된다.
+    // 문서 전체를 다시 쓰므로(delta 로 저장된 문서도 전체 content 로 바뀜) 복원해 둔 content 캐시도 비운다
+    public CompletableFuture<TermBatchResult> saveAllAsync(List<Term> terms) {
+        List<WriteBatch> batches = new ArrayList<>();
+        List<List<String>> batchIds = new ArrayList<>();
+        Map<String, Term> byId = new HashMap<>();
+        for (int start = 0; start < terms.size(); start += MAX_BATCH_SIZE) {
+            WriteBatch batch = firestore.batch();
+            List<String> ids = new ArrayList<>();
+            for (Term term : terms.subList(start, Math.min(start + MAX_BATCH_SIZE, terms.size()))) {
+                if (term.getId() == null || term.getId().isEmpty()) {
+                    term.setId(newId());
+                }
+                withCompressedFields(term, () -> batch.set(firestore.collection(COLLECTION_NAME).document(term.getId()), term));
+                ids.add(term.getId());
+                byId.put(term.getId(), term);
+            }
+            batches.add(batch);
+            batchIds.add(ids);
+        }
+        return commitAll(batches, batchIds, ids -> ids.forEach(id -> indexed(byId.get(id))))
+                .thenApply(result -> {
+                    termDeltaStore.evict(byId.keySet());
+                    return result;
+                });
+    }
+
+    // 여러 문서의 risk, feedback 만 batch 로 갱신한다 (Kafka 분석 결과 반영).
+    // 문서 전체를 다시 쓰지 않으므로 그사이 새 버전 저장으로 바뀐 latest 등 다른 필드를 덮어쓰지 않는다. 없는 문서가 있으면 그 batch 는 실패한다
+    public CompletableFuture<TermBatchResult> saveAnalysesAsync(List<Term> terms) {
+        List<WriteBatch> batches = new ArrayList<>();
+        List<List<String>> batchIds = new ArrayList<>();
+        Map<String, Term> byId = new HashMap<>();
+        for (int start = 0; start < terms.size(); start += MAX_BATCH_SIZE) {
+            WriteBatch batch = firestore.batch();
+            List<String> ids = new ArrayList<>();
+            for (Term term : terms.subList(start, Math.min(start + MAX_BATCH_SIZE, terms.size()))) {
+                Map<String, Object> fields = termCompressionStore.storedFields("feedback", term.getFeedback());
+                fields.put("risk", term.getRisk());
+                batch.update(firestore.collection(COLLECTION_NAME).document(term.getId()), fields);
+                ids.add(term.getId());
+                byId.put(term.getId(), term);
+            }
+            batches.add(batch);
+            batchIds.add(ids);
+        }
+        return commitAll(batches, batchIds, ids -> ids.forEach(id -> indexed(byId.get(id))));
+    }
+
+    public TermBatchResult deleteAll(List<Term> terms) throws ExecutionException, InterruptedException {
+        return FirestoreFutures.await(deleteAllAsync(terms));
+    }
+
+    // 여러 문서를 batch 로 나누어 삭제. delete() 와 달리 결과를 기다리고 실패한 문서를 알려 준다
+    public CompletableFuture<TermBatchResult> deleteAllAsync(List<Term> terms) {
+        List<WriteBatch> batches = new ArrayList<>();
+        List<List<String>> batchIds = new ArrayList<>();
+        for (int start = 0; start < terms.size(); start += MAX_BATCH_SIZE) {
+            WriteBatch batch = firestore.batch();
+            List<String> ids = new ArrayList<>();
+            for (Term term : terms.subList(start, Math.min(start + MAX_BATCH_SIZE, terms.size()))) {
+                if (term == null || term.getId() == null) {
+                    continue;
+                }
+                batch.delete(firestore.collection(COLLECTION_NAME).document(term.getId()));
+                ids.add(term.getId());
+            }
+            batches.add(batch);
+            batchIds.add(ids);
+        }
+        return commitAll(batches, batchIds, this::removed);
+    }
+
+    // 저장/삭제가 커밋된 뒤 메모리 색인(검색, 유사 조항)에 반영. 색인 작업은 TermIndexUpdates 의 전용 스레드에서 한다
+    private void indexed(Term term) {
+        termIndexUpdates.indexed(term);
+    }
+
+    private void removed(List<String> ids) {
+        termIndexUpdates.removed(ids);
+    }
+
+    // 다른 인스턴스가 쓴 문서를 다시 읽어 이 인스턴스의 메모리 색인에 반영한다 (TermCache 무효화 채널이 켜져 있을 때)
+    @PostConstruct
+    public void followRemoteWrites() {
+        termCache.onRemoteInvalidation(this::reindex);
+    }
+
+    private void reindex(List<String> ids) {
+        findAllByIdAsync(ids).whenComplete((found, error) -> {
+            if (error != null) {
+                System.out.println("##### failed to reindex terms written by another instance " + ids + ": "
+                        + FirestoreFutures.unwrap(error).getMessage() + " #####");
+                return;
+            }
+            List<String> deleted = new ArrayList<>();
+            for (String id : ids) {
+                Term term = found.get(id);
+                if (term != null) {
+                    indexed(term);
+                } else {
+                    deleted.add(id);
+                }
+            }
+            removed(deleted);
+        });
+    }
+
+    // committed 는 커밋에 성공한 batch 의 문서 ID 로 호출된다 (검색 색인 반영)
+    private CompletableFuture<TermBatchResult> commitAll(List<WriteBatch> batches, List<List<String>> batchIds,
+                                                         Consumer<List<String>> committed) {
+        TermBatchResult result = new TermBatchResult();
+        List<CompletableFuture<Void>> commits = new ArrayList<>();
+        for (int i = 0; i < batches.size(); i++) {
+            List<String> ids = batchIds.get(i);
+            if (ids.isEmpty()) {
+                continue;
+            }
+            commits.add(FirestoreFutures.toCompletable(batches.get(i).commit()).handle((writeResults, error) -> {
+                synchronized (result) {
+                    if (error == null) {
+                        result.getSucceeded().addAll(ids);
+                        committed.accept(ids);
+                    } else {
+                        Throwable cause = FirestoreFutures.unwrap(error);
+                        for (String id : ids) {
+                            result.getFailures().put(id, cause.getMessage());
+                        }
+                    }
+                }
+                // 커밋 결과를 알 수 없는 경우(타임아웃 등)도 있으므로 성공 여부와 관계없이 무효화
+                termCache.invalidate(ids);
+                return null;
+            }));
+        }
+        return CompletableFuture.allOf(commits.toArray(new CompletableFuture[0])).thenApply(ignored -> result);
+    }
+
+    // 전체 문서를 문서 ID 순으로 afterId 다음부터 limit 개 조회 (검색 색인 재구성용, afterId 가 null 이면 처음부터)
+    public CompletableFuture<List<Term>> findAllAfterAsync(String afterId, int limit) {
+        Query query = firestore.collection(COLLECTION_NAME).orderBy(FieldPath.documentId()).limit(limit);
+        if (afterId != null) {
+            query = query.startAfter(firestore.collection(COLLECTION_NAME).document(afterId));
+        }
+        return termQueryAsync(query);
+    }
+
+    // 사용자의 약관을 문서 ID 순으로 afterId 다음부터 limit 개 조회 (내보내기용, userId 단일 필드 인덱스로 충분)
+    public CompletableFuture<List<Term>> findByUserIdAfterAsync(String userId, String afterId, int limit) {
+        Query query = firestore.collection(COLLECTION_NAME)
                 .whereEqualTo("userId", userId)
-                .get();
-        
-        List<QueryDocumentSnapshot> documents = future.get().getDocuments();
-        return documents.stream()
-                .map(doc -> doc.toObject(Term.class))
-                .collect(Collectors.toList());
+                .orderBy(FieldPath.documentId())
+                .limit(limit);
+        if (afterId != null && !afterId.isEmpty()) {
+            query = query.startAfter(firestore.collection(COLLECTION_NAME).document(afterId));
+        }
+        return termQueryAsync(query);
+    }
+
+    // 여러 문서를 한 번의 getAll 로 읽는다 (없는 문서는 결과에서 빠짐). 읽은 문서는 캐시에 넣고, delta 로 저장된 버전은 content 를 복원한다
+    public CompletableFuture<Map<String, Term>> findAllByIdAsync(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return CompletableFuture.completedFuture(new HashMap<>());
+        }
+        DocumentReference[] refs = ids.stream()
+                .map(id -> firestore.collection(COLLECTION_NAME).document(id))
+                .toArray(DocumentReference[]::new);
+        long startGeneration = termCache.generation();
+        return FirestoreFutures.toCompletable(firestore.getAll(refs)).thenCompose(documents -> {
+            List<Term> terms = new ArrayList<>();
+            for (DocumentSnapshot document : documents) {
+                if (document.exists()) {
+                    termCache.put(document.getId(), document, startGeneration);
+                    terms.add(toTerm(document));
+                }
+            }
+            return termDeltaStore.decodeAll(terms, this::findByIdAsync);
+        }).thenApply(terms -> {
+            Map<String, Term> byId = new HashMap<>();
+            for (Term term : terms) {
+                byId.put(term.getId(), term);
+            }
+            return byId;
+        });
+    }
+
+    // 재개 토큰으로 이미 처리한 줄 수. 다른 사용자의 토큰이면 InvalidTermRequestException
+    public CompletableFuture<Long> findImportProgressAsync(String token, String userId) {
+        return FirestoreFutures.toCompletable(firestore.collection(IMPORT_COLLECTION_NAME).document(token).get()).thenApply(document -> {
+            if (!document.exists()) {
+                return 0L;
+            }
+            if (!userId.equals(document.getString("userId"))) {
+                throw new InvalidTermRequestException("Invalid resume token");
+            }
+            Long processed = document.getLong("processedLines");
+            return processed == null ? 0L : processed;
+        });
+    }
+
+    public CompletableFuture<Void> saveImportProgressAsync(String token, String userId, long processedLines) {
+        Map<String, Object> progress = new HashMap<>();
+        progress.put("userId", userId);
+        progress.put("processedLines", processedLines);
+        progress.put("updatedAt", FieldValue.serverTimestamp());
+        return FirestoreFutures.toCompletable(firestore.collection(IMPORT_COLLECTION_NAME).document(token).set(progress))
+                .thenApply(writeResult -> null);
+    }
+
+    public List<Term> findByUserId(String userId) throws ExecutionException, InterruptedException {
+        return FirestoreFutures.await(findByUserIdAsync(userId));
+    }
+
+    public CompletableFuture<List<Term>> findByUserIdAsync(String userId) {
+        return termQueryAsync(firestore.collection(COLLECTION_NAME).whereEqualTo("userId", userId));
     }
 
     public List<Term> findByOrigin(String originId) throws ExecutionException, InterruptedException {
-        ApiFuture<QuerySnapshot> future = firestore.collection(COLLECTION_NAME)
-                .whereEqualTo("origin", originId)
-                .get();
-        
-        List<QueryDocumentSnapshot> documents = future.get().getDocuments();
-        return documents.stream()
-                .map(doc -> doc.toObject(Term.class))
+        return FirestoreFutures.await(findByOriginAsync(originId));
+    }
+
+    public List<Term> findByGroupId(String userId, String groupId) throws ExecutionException, InterruptedException {
+        return FirestoreFutures.await(findByGroupIdAsync(userId, groupId));
+    }
+
+    // 같은 버전 체인에 속한 사용자의 모든 문서를 한 번의 쿼리로 조회 (userId, groupId 단일 필드 인덱스 병합)
+    public CompletableFuture<List<Term>> findByGroupIdAsync(String userId, String groupId) {
+        return termQueryAsync(firestore.collection(COLLECTION_NAME)
+                .whereEqualTo("userId", userId)
+                .whereEqualTo("groupId", groupId));
+    }
+
+    // 버전 체인의 버전들을 번호 내림차순으로 요약 필드만 조회 (userId + groupId + versionNumber 복합 인덱스 사용)
+    public CompletableFuture<List<TermSummary>> findVersionHistoryAsync(String userId, String groupId) {
+        return queryAsync(firestore.collection(COLLECTION_NAME).select(TermSummary.FIELDS)
+                        .whereEqualTo("userId", userId)
+                        .whereEqualTo("groupId", groupId)
+                        .orderBy("versionNumber", Query.Direction.DESCENDING),
+                TermRepository::toSummary);
+    }
+
+    public CompletableFuture<List<Term>> findByOriginAsync(String originId) {
+        return termQueryAsync(firestore.collection(COLLECTION_NAME).whereEqualTo("origin", originId));
+    }
+
+    // 사용자의 약관 전체를 요약 필드만 읽어서 조회
+    public CompletableFuture<List<TermSummary>> findSummariesByUserIdAsync(String userId) {
+        return queryAsync(firestore.collection(COLLECTION_NAME).select(TermSummary.FIELDS).whereEqualTo("userId", userId),
+                TermRepository::toSummary);
+    }
+
+    // 사용자의 약관을 createdAt 내림차순(같으면 문서 ID 내림차순)으로 limit 개씩 조회
+    // cursor 는 이전 페이지 마지막 문서의 (createdAt, id) 를 인코딩한 값. 인덱스는 firestore.indexes.json 참고
+    // cursor 형식이 틀리면 InvalidTermRequestException 으로 실패한다
+    public CompletableFuture<TermPage<Term>> findPageByUserIdAsync(String userId, String category, String termType, int limit, String cursor) {
+        return pageAsync(firestore.collection(COLLECTION_NAME), userId, category, termType, limit, cursor,
+                this::toTerm)
+                .thenCompose(page -> termDeltaStore.decodeAll(page.getItems(), this::findByIdAsync).thenApply(items -> page));
+    }
+
+    // findPageByUserIdAsync 와 같은 순서/커서를 쓰되 요약 필드만 읽는다
+    public CompletableFuture<TermPage<TermSummary>> findSummaryPageByUserIdAsync(String userId, String category, String termType, int limit, String cursor) {
+        return pageAsync(firestore.collection(COLLECTION_NAME).select(TermSummary.FIELDS), userId, category, termType, limit, cursor,
+                TermRepository::toSummary);
+    }
+
+    // 사용자의 버전 체인마다 최신 버전만 조회 (userId, latest 동등 조건만 쓰므로 단일 필드 인덱스로 충분)
+    public CompletableFuture<List<Term>> findLatestByUserIdAsync(String userId) {
+        return termQueryAsync(latestQuery(firestore.collection(COLLECTION_NAME), userId));
+    }
+
+    public CompletableFuture<List<TermSummary>> findLatestSummariesByUserIdAsync(String userId) {
+        return queryAsync(latestQuery(firestore.collection(COLLECTION_NAME).select(TermSummary.FIELDS), userId),
+                TermRepository::toSummary);
+    }
+
+    private Query latestQuery(Query query, String userId) {
+        return query.whereEqualTo("userId", userId).whereEqualTo("latest", true);
+    }
+
+    // Term 전체를 읽는 쿼리. delta 로 저장된 버전은 content 를 복원한다
+    private CompletableFuture<List<Term>> termQueryAsync(Query query) {
+        return queryAsync(query, this::toTerm)
+                .thenCompose(terms -> termDeltaStore.decodeAll(terms, this::findByIdAsync));
+    }
+
+    private <T> CompletableFuture<List<T>> queryAsync(Query query, Function<QueryDocumentSnapshot, T> mapper) {
+        return FirestoreFutures.toCompletable(query.get()).thenApply(snapshot -> snapshot.getDocuments().stream()
+                .map(mapper)
+                .collect(Collectors.toList()));
+    }
+
+    private <T> CompletableFuture<TermPage<T>> pageAsync(Query query, String userId, String category, String termType,
+                                                         int limit, String cursor, Function<QueryDocumentSnapshot, T> mapper) {
+        Query pageQuery;
+        try {
+            pageQuery = pageQuery(query, userId, category, termType, cursor);
+        } catch (InvalidTermRequestException e) {
+            CompletableFuture<TermPage<T>> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+        return FirestoreFutures.toCompletable(pageQuery.limit(limit + 1).get())
+                .thenApply(snapshot -> toPage(snapshot.getDocuments(), limit, mapper));
+    }
+
+    private Query pageQuery(Query query, String userId, String category, String termType, String cursor) {
+        query = query.whereEqualTo("userId", userId);
+        if (category != null && !category.isEmpty()) {
+            query = query.whereEqualTo("category", category);
+        }
+        if (termType != null && !termType.isEmpty()) {
+            query = query.whereEqualTo("termType", termType);
+        }
+        query = query.orderBy("createdAt", Query.Direction.DESCENDING)
+                .orderBy(FieldPath.documentId(), Query.Direction.DESCENDING);
+        if (cursor != null && !cursor.isEmpty()) {
+            Object[] position = decodeCursor(cursor);
+            query = query.startAfter(position[0], position[1]);
+        }
+        return query;
+    }
+
+    private static <T> TermPage<T> toPage(List<QueryDocumentSnapshot> documents, int limit, Function<QueryDocumentSnapshot, T> mapper) {
+        // 다음 페이지가 있는지 알기 위해 limit 보다 하나 더 읽어 온 결과
+        List<T> items = documents.stream()
+                .limit(limit)
+                .map(mapper)
                 .collect(Collectors.toList());
+        String nextCursor = documents.size() > limit ? encodeCursor(documents.get(limit - 1)) : null;
+        return new TermPage<>(items, nextCursor);
+    }
+
+    private static TermSummary toSummary(DocumentSnapshot doc) {
+        TermSummary summary = doc.toObject(TermSummary.class);
+        summary.setId(doc.getId());
+        return summary;
+    }
+
+    private static String encodeCursor(DocumentSnapshot last) {
+        Date createdAtDate = last.getDate("createdAt");
+        String createdAt = createdAtDate == null ? "" : String.valueOf(createdAtDate.getTime());
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((createdAt + ":" + last.getId()).getBytes(StandardCharsets.UTF_8));
+    }
+
+    // 문서 ID 에는 '/' 가 들어갈 수 없으므로 ':' 로 나눈 두 부분만 다룬다. 형식이 틀리면 InvalidTermRequestException
+    private Object[] decodeCursor(String cursor) {
+        String decoded;
+        try {
+            decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidTermRequestException("Invalid cursor", e);
+        }
+        int separator = decoded.indexOf(':');
+        if (separator < 0 || separator == decoded.length() - 1) {
+            throw new InvalidTermRequestException("Invalid cursor");
+        }
+        String createdAt = decoded.substring(0, separator);
+        String id = decoded.substring(separator + 1);
+        try {
+            return new Object[]{
+                    createdAt.isEmpty() ? null : new Date(Long.parseLong(createdAt)),
+                    firestore.collection(COLLECTION_NAME).document(id)
+            };
+        } catch (IllegalArgumentException e) {
+            // 숫자가 아닌 createdAt, 문서 경로로 쓸 수 없는 ID
+            throw new InvalidTermRequestException("Invalid cursor", e);
+        }
     }
 
     // 기존 getTerm 메소드를 Firestore 쿼리로 대체 (페이징은 복잡하여 일단 제외)
@@ -88,7 +790,17 @@ public class TermRepository {
         ApiFuture<QuerySnapshot> future = query.get();
         List<QueryDocumentSnapshot> documents = future.get().getDocuments();
         return documents.stream()
-                .map(doc -> doc.toObject(Term.class))
+                .map(this::toTerm)
                 .collect(Collectors.toList());
     }
-}
\ No newline at end of file
+
+    private static class VersionHead {
+        private final String id;
+        private final long versionNumber;
+
+        VersionHead(String id, long versionNumber) {
+            this.id = id;
+            this.versionNumber = versionNumber;
+        }
+    }
+}
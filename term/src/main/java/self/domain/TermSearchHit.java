@@ -0,0 +1,21 @@
+package self.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * GET /terms/search 결과 항목. 검색 색인에 함께 보관한 필드만 담으므로 Firestore 를 다시 읽지 않는다.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TermSearchHit {
+
+    private String id;
+    private String title;
+    private String category;
+    private String productName;
+    private String version;
+    private double score;
+}
@@ -0,0 +1,441 @@
+package self.domain;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 사용자별 약관 전문 검색 색인 (인스턴스 메모리). GET /terms/search 에서 Firestore 를 읽지 않고 바로 결과를 만든다.
+ *
+ * - 대상 필드: title(가중치 3), category/productName(2), content(1)
+ * - 토큰: 글자/숫자 구간의 문자 2-gram (한국어는 형태소 분석 없이도 부분 일치가 되도록). 한 글자짜리 구간은 그 글자 자체
+ * - postings: gram 마다 (문서 번호 간격, 가중 빈도)를 varint 로 이어 붙인 byte 배열. 문서 번호는 계속 늘어나므로 항상 뒤에 붙이면 된다
+ * - 수정된 문서는 새 번호로 다시 넣고 옛 번호는 삭제 표시만 한다. 삭제 표시가 살아 있는 문서보다 많아지면 그 사용자 색인을 압축한다
+ * - 검색: 질의의 모든 gram 을 포함하는 문서만 BM25 점수로 정렬 (드문 gram 부터 교집합)
+ * - TermRepository 의 저장/삭제가 끝날 때마다 TermIndexUpdates 의 전용 스레드에서 반영되고, 기동 시 TermIndexRebuild 가 Firestore 에서 다시 채운다
+ * - 잠금: 사용자 색인(UserIndex) 단위. 같은 문서에 대한 실시간 반영과 재구성은 문서 ID 로 나눈 잠금으로 순서를 맞춘다
+ * - 지표: term.search.documents, term.search.postings.bytes
+ *
+ * 다른 인스턴스의 쓰기는 term.cache.invalidation-channel 이 켜져 있으면 알림을 받은 문서를 다시 읽어 반영하고(TermRepository),
+ * 꺼져 있으면 다음 기동 때 반영된다.
+ */
+@Component
+public class TermSearchIndex {
+
+    private static final int TITLE_WEIGHT = 3;
+    private static final int FIELD_WEIGHT = 2;
+    private static final int CONTENT_WEIGHT = 1;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    // 삭제 표시된 문서가 이 수보다 적으면 압축하지 않는다
+    private static final int MIN_DEAD_FOR_COMPACTION = 64;
+    private static final int DOCUMENT_LOCKS = 64;
+
+    private final ConcurrentMap<String, UserIndex> users = new ConcurrentHashMap<>();
+    // 문서 ID -> userId (삭제할 때 ID 만 알아도 되도록)
+    private final ConcurrentMap<String, String> owners = new ConcurrentHashMap<>();
+
+    // 문서 ID 로 고르는 잠금. 재구성 중 같은 문서의 "실시간 반영 여부 확인 + 반영"이 끼어들지 않게 한다
+    private final Object[] documentLocks = new Object[DOCUMENT_LOCKS];
+
+    // 재구성 중에 실시간으로 반영된 문서 ID. 재구성이 먼저 읽어 둔(더 오래됐을 수 있는) 값으로 덮어쓰지 않는다
+    private volatile Set<String> touchedDuringRebuild;
+    private volatile boolean ready;
+
+    public TermSearchIndex(MeterRegistry meterRegistry) {
+        for (int i = 0; i < documentLocks.length; i++) {
+            documentLocks[i] = new Object();
+        }
+        Gauge.builder("term.search.documents", this, index -> index.documentCount()).register(meterRegistry);
+        Gauge.builder("term.search.postings.bytes", this, index -> index.postingsBytes()).register(meterRegistry);
+    }
+
+    // 기동 후 재구성이 성공적으로 끝났는지. 그 전(또는 재구성이 실패한 뒤)의 검색 결과에는 읽지 못한 문서가 빠져 있을 수 있다
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void index(Term term) {
+        if (term == null || term.getId() == null || term.getUserId() == null) {
+            return;
+        }
+        synchronized (lockFor(term.getId())) {
+            Set<String> touched = touchedDuringRebuild;
+            if (touched != null) {
+                touched.add(term.getId());
+            }
+            put(term);
+        }
+    }
+
+    public void remove(String id) {
+        if (id == null) {
+            return;
+        }
+        synchronized (lockFor(id)) {
+            Set<String> touched = touchedDuringRebuild;
+            if (touched != null) {
+                touched.add(id);
+            }
+            String userId = owners.remove(id);
+            UserIndex user = userId == null ? null : users.get(userId);
+            if (user != null) {
+                synchronized (user) {
+                    user.remove(id);
+                }
+            }
+        }
+    }
+
+    public void remove(Collection<String> ids) {
+        for (String id : ids) {
+            remove(id);
+        }
+    }
+
+    public void beginRebuild() {
+        touchedDuringRebuild = ConcurrentHashMap.newKeySet();
+    }
+
+    // 재구성 중 Firestore 에서 읽은 문서. 그 사이 실시간으로 저장/삭제된 문서는 건너뛴다
+    public void load(Term term) {
+        if (term == null || term.getId() == null || term.getUserId() == null) {
+            return;
+        }
+        synchronized (lockFor(term.getId())) {
+            Set<String> touched = touchedDuringRebuild;
+            if (touched != null && touched.contains(term.getId())) {
+                return;
+            }
+            put(term);
+        }
+    }
+
+    // completed=false 이면 실시간 반영만 계속하고 ready 는 바꾸지 않는다
+    public void endRebuild(boolean completed) {
+        touchedDuringRebuild = null;
+        if (completed) {
+            ready = true;
+        }
+    }
+
+    // 기동 시 재구성을 하지 않도록 설정한 경우. 기동 후 저장된 문서만으로 검색한다
+    public void markReady() {
+        ready = true;
+    }
+
+    private Object lockFor(String id) {
+        return documentLocks[Math.floorMod(id.hashCode(), documentLocks.length)];
+    }
+
+    private void put(Term term) {
+        String previousUser = owners.put(term.getId(), term.getUserId());
+        if (previousUser != null && !previousUser.equals(term.getUserId())) {
+            UserIndex previous = users.get(previousUser);
+            if (previous != null) {
+                synchronized (previous) {
+                    previous.remove(term.getId());
+                }
+            }
+        }
+
+        Map<String, Integer> grams = new HashMap<>();
+        int length = grams(term.getTitle(), TITLE_WEIGHT, grams)
+                + grams(term.getCategory(), FIELD_WEIGHT, grams)
+                + grams(term.getProductName(), FIELD_WEIGHT, grams)
+                + grams(term.getContent(), CONTENT_WEIGHT, grams);
+        Doc doc = new Doc(term.getId(), term.getTitle(), term.getCategory(), term.getProductName(), term.getVersion(), length);
+
+        UserIndex user = users.computeIfAbsent(term.getUserId(), key -> new UserIndex());
+        synchronized (user) {
+            user.remove(term.getId());
+            user.add(doc, grams);
+        }
+    }
+
+    /**
+     * 사용자의 문서 중 query 의 모든 gram 을 포함하는 문서를 점수 순으로 offset 부터 limit 개.
+     * 검색할 글자가 없거나(한 글자짜리 단어만 있는 경우 포함) 2-gram 을 만들 수 없으면 InvalidTermRequestException.
+     */
+    public TermPage<TermSearchHit> search(String userId, String query, int limit, int offset) {
+        Map<String, Integer> queryGrams = new HashMap<>();
+        grams(query, 1, queryGrams);
+        Set<String> distinct = new LinkedHashSet<>(queryGrams.keySet());
+        distinct.removeIf(gram -> gram.length() < 2);
+        if (distinct.isEmpty()) {
+            throw new InvalidTermRequestException("Search query must contain at least two consecutive letters or digits.");
+        }
+
+        UserIndex user = users.get(userId);
+        if (user == null) {
+            return new TermPage<>(new ArrayList<>(), null);
+        }
+        List<TermSearchHit> hits;
+        synchronized (user) {
+            hits = user.search(distinct);
+        }
+
+        int from = Math.min(offset, hits.size());
+        int to = Math.min(from + limit, hits.size());
+        String nextCursor = to < hits.size() ? String.valueOf(to) : null;
+        return new TermPage<>(new ArrayList<>(hits.subList(from, to)), nextCursor);
+    }
+
+    private long documentCount() {
+        long count = 0;
+        for (UserIndex user : users.values()) {
+            synchronized (user) {
+                count += user.live;
+            }
+        }
+        return count;
+    }
+
+    private long postingsBytes() {
+        long bytes = 0;
+        for (UserIndex user : users.values()) {
+            synchronized (user) {
+                for (Postings postings : user.postings.values()) {
+                    bytes += postings.size;
+                }
+            }
+        }
+        return bytes;
+    }
+
+    // text 의 gram 빈도에 weight 를 곱해 into 에 더하고, 더한 총량(문서 길이)을 돌려준다
+    static int grams(String text, int weight, Map<String, Integer> into) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        int added = 0;
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean letter = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (letter && start < 0) {
+                start = i;
+            } else if (!letter && start >= 0) {
+                if (i - start == 1) {
+                    into.merge(normalized.substring(start, i), weight, Integer::sum);
+                    added += weight;
+                }
+                for (int j = start; j + 2 <= i; j++) {
+                    into.merge(normalized.substring(j, j + 2), weight, Integer::sum);
+                    added += weight;
+                }
+                start = -1;
+            }
+        }
+        return added;
+    }
+
+    private static class Doc {
+        private final String id;
+        private final String title;
+        private final String category;
+        private final String productName;
+        private final String version;
+        private final int length;
+
+        Doc(String id, String title, String category, String productName, String version, int length) {
+            this.id = id;
+            this.title = title;
+            this.category = category;
+            this.productName = productName;
+            this.version = version;
+            this.length = length;
+        }
+    }
+
+    // 한 사용자의 색인. 모든 접근은 이 객체로 동기화한다
+    private static class UserIndex {
+        private final Map<String, Postings> postings = new HashMap<>();
+        private final Map<String, Integer> docNos = new HashMap<>();
+        // 문서 번호 -> 문서 (삭제된 번호는 null)
+        private final List<Doc> docs = new ArrayList<>();
+        private long totalLength;
+        private int live;
+
+        void add(Doc doc, Map<String, Integer> grams) {
+            int docNo = docs.size();
+            docs.add(doc);
+            docNos.put(doc.id, docNo);
+            totalLength += doc.length;
+            live++;
+            for (Map.Entry<String, Integer> gram : grams.entrySet()) {
+                postings.computeIfAbsent(gram.getKey(), key -> new Postings()).add(docNo, gram.getValue());
+            }
+        }
+
+        void remove(String id) {
+            Integer docNo = docNos.remove(id);
+            if (docNo == null) {
+                return;
+            }
+            totalLength -= docs.get(docNo).length;
+            docs.set(docNo, null);
+            live--;
+            int dead = docs.size() - live;
+            if (dead >= MIN_DEAD_FOR_COMPACTION && dead > live) {
+                compact();
+            }
+        }
+
+        // 삭제 표시된 번호를 빼고 문서 번호를 0부터 다시 매긴다
+        private void compact() {
+            int[] remap = new int[docs.size()];
+            List<Doc> liveDocs = new ArrayList<>(live);
+            for (int i = 0; i < docs.size(); i++) {
+                Doc doc = docs.get(i);
+                remap[i] = doc == null ? -1 : liveDocs.size();
+                if (doc != null) {
+                    docNos.put(doc.id, liveDocs.size());
+                    liveDocs.add(doc);
+                }
+            }
+            postings.entrySet().removeIf(entry -> {
+                Postings compacted = entry.getValue().remap(remap);
+                entry.setValue(compacted);
+                return compacted.count == 0;
+            });
+            docs.clear();
+            docs.addAll(liveDocs);
+        }
+
+        List<TermSearchHit> search(Set<String> grams) {
+            List<TermSearchHit> hits = new ArrayList<>();
+            if (live == 0) {
+                return hits;
+            }
+            Postings[] lists = new Postings[grams.size()];
+            int n = 0;
+            for (String gram : grams) {
+                Postings list = postings.get(gram);
+                if (list == null) {
+                    return hits;
+                }
+                lists[n++] = list;
+            }
+            // 문서 수가 적은 gram 부터 처리하면 뒤의 긴 목록에서는 대부분 건너뛴다
+            Arrays.sort(lists, Comparator.comparingInt(list -> list.count));
+
+            double averageLength = Math.max(1.0, (double) totalLength / live);
+            double[] scores = new double[docs.size()];
+            int[] matched = new int[docs.size()];
+            for (int i = 0; i < lists.length; i++) {
+                Postings list = lists[i];
+                double idf = Math.log(1 + (live - list.count + 0.5) / (list.count + 0.5));
+                int position = 0;
+                int docNo = -1;
+                while (position < list.size) {
+                    int gap = 0;
+                    int shift = 0;
+                    byte b;
+                    do {
+                        b = list.data[position++];
+                        gap |= (b & 0x7F) << shift;
+                        shift += 7;
+                    } while (b < 0);
+                    int tf = 0;
+                    shift = 0;
+                    do {
+                        b = list.data[position++];
+                        tf |= (b & 0x7F) << shift;
+                        shift += 7;
+                    } while (b < 0);
+                    docNo += gap;
+
+                    // 앞의 모든 gram 과 일치한 문서만 남긴다
+                    if (matched[docNo] != i) {
+                        continue;
+                    }
+                    Doc doc = docs.get(docNo);
+                    if (doc == null) {
+                        continue;
+                    }
+                    matched[docNo]++;
+                    scores[docNo] += idf * tf * (K1 + 1) / (tf + K1 * (1 - B + B * doc.length / averageLength));
+                }
+            }
+
+            for (int docNo = 0; docNo < matched.length; docNo++) {
+                if (matched[docNo] == lists.length) {
+                    Doc doc = docs.get(docNo);
+                    hits.add(new TermSearchHit(doc.id, doc.title, doc.category, doc.productName, doc.version, scores[docNo]));
+                }
+            }
+            hits.sort(Comparator.comparingDouble(TermSearchHit::getScore).reversed().thenComparing(TermSearchHit::getId));
+            return hits;
+        }
+    }
+
+    // (문서 번호 간격, 빈도) varint 목록
+    private static class Postings {
+        private byte[] data = new byte[8];
+        private int size;
+        private int lastDocNo = -1;
+        private int count;
+
+        void add(int docNo, int tf) {
+            writeVarint(docNo - lastDocNo);
+            writeVarint(tf);
+            lastDocNo = docNo;
+            count++;
+        }
+
+        Postings remap(int[] remap) {
+            Postings result = new Postings();
+            int position = 0;
+            int docNo = -1;
+            while (position < size) {
+                int[] gap = readVarint(position);
+                int[] tf = readVarint(gap[1]);
+                position = tf[1];
+                docNo += gap[0];
+                if (remap[docNo] >= 0) {
+                    result.add(remap[docNo], tf[0]);
+                }
+            }
+            return result;
+        }
+
+        private void writeVarint(int value) {
+            if (size + 5 > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, size + 5));
+            }
+            while ((value & ~0x7F) != 0) {
+                data[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            data[size++] = (byte) value;
+        }
+
+        // { 값, 다음 위치 }
+        private int[] readVarint(int position) {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[position++];
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return new int[]{value, position};
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package self.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * GET /terms/{id}/similar 의 응답. 이 약관의 조항 중 사용자의 다른 약관에 거의 같은 조항이 있는 것만 담는다.
+ *
+ * - clause: TermClauses.split 기준 조항 번호 (0부터), text: 조항 앞부분
+ * - similarity: MinHash 로 추정한 Jaccard 유사도 (글자 3-gram 기준, 0~1)
+ * - risk: 일치한 약관에 이미 저장된 위험 분석 결과 (없으면 null). 같은 조항을 다시 분석하지 않고 참고할 수 있다
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TermSimilarClauses {
+
+    private String id;
+    private List<Clause> clauses;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Clause {
+        private int clause;
+        private String text;
+        private List<Match> matches;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Match {
+        private String termId;
+        private String title;
+        private int clause;
+        private String text;
+        private double similarity;
+        private String risk;
+    }
+}
@@ -0,0 +1,34 @@
+package self.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+/**
+ * 목록 화면용 약관 요약. content, requirement, feedback 같은 큰 필드를 읽지 않도록
+ * Firestore select() 로 아래 필드만 가져온다. (버전 묶음 표시를 위해 origin, groupId, termType 포함)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TermSummary {
+
+    static final String[] FIELDS = {
+            "title", "category", "productName", "version", "versionNumber", "origin", "groupId", "termType", "createdAt", "risk", "latest"
+    };
+
+    private String id;
+    private String title;
+    private String category;
+    private String productName;
+    private String version;
+    private Long versionNumber;
+    private String origin;
+    private String groupId;
+    private String termType;
+    private Date createdAt;
+    private String risk;
+    private Boolean latest;
+}
@@ -0,0 +1,19 @@
+package self.domain;
+
+/**
+ * 새 버전을 만들려는 원본이 이미 체인의 최신 버전이 아닌 경우.
+ * 원본을 읽은 뒤 다른 요청이 먼저 새 버전을 저장한 것이므로, 최신 버전(latestId)을 다시 읽어서 고쳐야 한다. (HTTP 409)
+ */
+public class TermVersionConflictException extends RuntimeException {
+
+    private final String latestId;
+
+    public TermVersionConflictException(String originalId, String latestId) {
+        super("Term " + originalId + " is not the latest version; latest is " + latestId + ".");
+        this.latestId = latestId;
+    }
+
+    public String getLatestId() {
+        return latestId;
+    }
+}
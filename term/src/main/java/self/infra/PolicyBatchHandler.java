@@ -0,0 +1,143 @@
+package self.infra;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Service;
+import self.config.kafka.KafkaBatchConfig;
+import self.domain.*;
+import self.service.TermEventBatchService;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+
+//<<< Clean Arch / Inbound Adaptor
+/**
+ * PolicyHandler 의 배치 버전. term.events.batch.enabled=true 이면 이벤트를 한 건씩이 아니라 poll 한 묶음 단위로 처리한다.
+ * 묶음 전체가 반영된 뒤에만 오프셋을 커밋한다. 일부 약관이 실패하면 그중 가장 앞선 레코드 위치로 BatchListenerFailedException 을 던져
+ * 그 앞까지는 커밋하고 그 뒤부터 다시 받는다. 그 사이 이미 반영된 다른 약관의 이벤트도 다시 처리되지만,
+ * 새 버전 ID 가 메시지 위치로 정해지고 분석 결과는 덮어쓰기이므로 결과가 달라지지 않는다. (KafkaBatchConfig, TermEventBatchService)
+ */
+@Service
+@ConditionalOnProperty(name = "term.events.batch.enabled", havingValue = "true")
+public class PolicyBatchHandler {
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    @Autowired
+    TermEventBatchService termEventBatchService;
+
+    @KafkaListener(
+        topics = "${spring.cloud.stream.bindings.event-in.destination:self}",
+        groupId = "${spring.cloud.stream.bindings.event-in.group:term}",
+        containerFactory = KafkaBatchConfig.CONTAINER_FACTORY
+    )
+    public void wheneverTermEvents(
+        List<ConsumerRecord<String, String>> records,
+        Acknowledgment acknowledgment
+    ) throws ExecutionException, InterruptedException {
+        List<TermEventBatchService.TermEvent> events = new ArrayList<>();
+        for (int index = 0; index < records.size(); index++) {
+            ConsumerRecord<String, String> record = records.get(index);
+            AbstractEvent event = toEvent(record);
+            Long termId = termIdOf(event);
+            if (termId != null) {
+                events.add(new TermEventBatchService.TermEvent(index, termId.toString(), event, versionIdOf(record)));
+            }
+        }
+        System.out.println(
+            "\n\n##### batch listener : " + records.size() + " records, " + events.size() + " term events\n\n"
+        );
+
+        List<TermEventBatchService.FailedTerm> failed = termEventBatchService.apply(events);
+        if (failed.isEmpty()) {
+            acknowledgment.acknowledge();
+            return;
+        }
+        TermEventBatchService.FailedTerm first = failed.get(0);
+        for (TermEventBatchService.FailedTerm term : failed) {
+            System.out.println("##### batch listener: term " + term.getTermId() + " failed at record " + term.getIndex() + " #####");
+            term.getCause().printStackTrace();
+            if (term.getIndex() < first.getIndex()) {
+                first = term;
+            }
+        }
+        // 실패한 약관의 첫 레코드 앞까지만 커밋하고 그 뒤부터 다시 받는다 (KafkaBatchConfig 의 RecoveringBatchErrorHandler)
+        throw new BatchListenerFailedException("Failed to apply events of term " + first.getTermId(), first.getCause(), first.getIndex());
+    }
+
+    // PolicyHandler 가 처리하는 세 가지 이벤트만 변환하고, 나머지(다른 이벤트, 읽을 수 없는 메시지)는 null
+    private AbstractEvent toEvent(ConsumerRecord<String, String> record) {
+        if (record.value() == null) {
+            return null;
+        }
+        JsonNode payload;
+        try {
+            payload = objectMapper.readTree(record.value());
+        } catch (IOException e) {
+            System.out.println("##### batch listener: unreadable message at offset " + record.offset() + " skipped #####");
+            return null;
+        }
+        if (payload == null) {
+            return null;
+        }
+        String type = payload.path("eventType").asText(typeHeaderOf(record));
+        try {
+            switch (type) {
+                case "TermCreated":
+                    return objectMapper.treeToValue(payload, TermCreated.class);
+                case "ForeignTermCreated":
+                    return objectMapper.treeToValue(payload, ForeignTermCreated.class);
+                case "AiTermModified":
+                    return objectMapper.treeToValue(payload, AiTermModified.class);
+                default:
+                    return null;
+            }
+        } catch (IOException e) {
+            System.out.println("##### batch listener: invalid " + type + " at offset " + record.offset() + " skipped #####");
+            return null;
+        }
+    }
+
+    private static Long termIdOf(AbstractEvent event) {
+        if (event instanceof TermCreated) {
+            return ((TermCreated) event).getTermId();
+        }
+        if (event instanceof ForeignTermCreated) {
+            return ((ForeignTermCreated) event).getTermId();
+        }
+        if (event instanceof AiTermModified) {
+            return ((AiTermModified) event).getTermId();
+        }
+        return null;
+    }
+
+    // 스트림 바인더는 type 헤더를 JSON 문자열("\"TermCreated\"")로 기록한다
+    private static String typeHeaderOf(ConsumerRecord<String, String> record) {
+        Header header = record.headers().lastHeader("type");
+        if (header == null) {
+            return "";
+        }
+        String type = new String(header.value(), StandardCharsets.UTF_8);
+        return type.length() >= 2 && type.startsWith("\"") && type.endsWith("\"") ? type.substring(1, type.length() - 1) : type;
+    }
+
+    // 메시지 위치로 정해지는 새 버전 문서 ID. 같은 메시지를 다시 처리해도 같은 ID 가 나온다
+    private static String versionIdOf(ConsumerRecord<String, String> record) {
+        String position = record.topic() + "-" + record.partition() + "-" + record.offset();
+        return UUID.nameUUIDFromBytes(position.getBytes(StandardCharsets.UTF_8)).toString().replace("-", "");
+    }
+}
+//>>> Clean Arch / Inbound Adaptor
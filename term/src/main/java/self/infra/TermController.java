@@ -1,87 +1,235 @@
 package self.infra;
 
-import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseAuthException;
-import com.google.firebase.auth.FirebaseToken;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import self.config.InternalIdentityResolver;
 import self.domain.*;
 import self.service.TermService;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Date;
-import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/terms")
 public class TermController {
 
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     @Autowired
     private TermService termService;
 
     @Autowired
-    private FirebaseAuth firebaseAuth;
+    private InternalIdentityResolver internalIdentityResolver;
+
+    @Autowired
+    private HttpServletRequest request;
 
+    // 게이트웨이가 서명한 신원 헤더가 있으면 그것을 쓰고, 없을 때만 Firebase 토큰을 직접 검증
     private String getUidFromToken(String authorizationHeader) throws FirebaseAuthException {
-        if (authorizationHeader == null || !authorizationHeader.startsWith("Bearer ")) {
-            throw new IllegalArgumentException("Invalid Firebase ID token");
+        return internalIdentityResolver.resolveUid(request.getHeader(InternalIdentityResolver.HEADER), authorizationHeader);
+    }
+
+    // 비동기 처리 중 실패하면 HTTP 응답으로 바꾼다. 400 은 이 서비스가 요청을 검증하며 던진 InvalidTermRequestException 뿐이고
+    // (deleteTerm 의 "다른 버전의 원본인 버전" 포함), 원본이 최신 버전이 아니면 409,
+    // 그 밖의 예외(Firestore/SDK 의 IllegalStateException 등)는 기존과 같이 500
+    private static ResponseEntity<?> failure(Throwable throwable, String messagePrefix) {
+        Throwable cause = FirestoreFutures.unwrap(throwable);
+        if (cause instanceof TermVersionConflictException) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(cause.getMessage());
+        }
+        if (cause instanceof InvalidTermRequestException) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(cause.getMessage());
         }
-        String token = authorizationHeader.substring(7);
-        FirebaseToken decodedToken = firebaseAuth.verifyIdToken(token);
-        return decodedToken.getUid();
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(messagePrefix + cause.getMessage());
+    }
+
+    private static CompletableFuture<ResponseEntity<?>> completed(ResponseEntity<?> response) {
+        return CompletableFuture.completedFuture(response);
+    }
+
+    private static <T> CompletableFuture<ResponseEntity<?>> ok(CompletableFuture<T> body) {
+        return body.<ResponseEntity<?>>thenApply(ResponseEntity::ok);
     }
 
     @PostMapping
-    public ResponseEntity<?> createTerm(@RequestBody TermCreateRequestCommand createCommand,
-                                        @RequestHeader("Authorization") String authorizationHeader) {
+    public CompletableFuture<ResponseEntity<?>> createTerm(@RequestBody TermCreateRequestCommand createCommand,
+                                                           @RequestHeader("Authorization") String authorizationHeader) {
+        String userId;
         try {
-            String userId = getUidFromToken(authorizationHeader);
-            System.out.println("##### /terms POST called for user: " + userId + " #####");
-
-            Term term = new Term();
-            term.setUserId(userId);
-            term.setTitle(createCommand.getTitle());
-            term.setContent(createCommand.getContent());
-            term.setCategory(createCommand.getCategory());
-            term.setProductName(createCommand.getProductName());
-            term.setRequirement(createCommand.getRequirement());
-            term.setUserCompany(createCommand.getUserCompany());
-            term.setClient(createCommand.getClient());
-            term.setTermType(createCommand.getTermType());
-            term.setMemo(createCommand.getMemo()); // 수정 메모 설정
-            term.setVersion("v1");
-
-            Term createdTerm = termService.createTerm(term);
-            return ResponseEntity.status(HttpStatus.CREATED).body(createdTerm);
+            userId = getUidFromToken(authorizationHeader);
         } catch (FirebaseAuthException e) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Failed to verify Firebase ID token: " + e.getMessage());
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error creating term: " + e.getMessage());
+            return completed(ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Failed to verify Firebase ID token: " + e.getMessage()));
         }
+        System.out.println("##### /terms POST called for user: " + userId + " #####");
+
+        Term term = new Term();
+        term.setUserId(userId);
+        term.setTitle(createCommand.getTitle());
+        term.setContent(createCommand.getContent());
+        term.setCategory(createCommand.getCategory());
+        term.setProductName(createCommand.getProductName());
+        term.setRequirement(createCommand.getRequirement());
+        term.setUserCompany(createCommand.getUserCompany());
+        term.setClient(createCommand.getClient());
+        term.setTermType(createCommand.getTermType());
+        term.setMemo(createCommand.getMemo()); // 수정 메모 설정
+        term.setVersion("v1");
+
+        return termService.createTerm(term)
+                .<ResponseEntity<?>>thenApply(createdTerm -> ResponseEntity.status(HttpStatus.CREATED).body(createdTerm))
+                .exceptionally(e -> failure(e, "Error creating term: "));
     }
 
+    // limit/cursor/category/termType 이 하나도 없으면 기존처럼 전체 목록(배열)을 돌려주고,
+    // 하나라도 있으면 createdAt 내림차순으로 한 페이지({ items, nextCursor })만 돌려준다
+    // view=summary 이면 본문 없이 목록 화면에 필요한 필드(TermSummary)만 돌려준다
+    // latest=true 이면 버전 체인마다 최신 버전만 돌려준다 (전체 목록 형식에서만 지원)
     @GetMapping
-    public ResponseEntity<?> getTermsByUserId(@RequestHeader("Authorization") String authorizationHeader) {
+    public CompletableFuture<ResponseEntity<?>> getTermsByUserId(@RequestHeader("Authorization") String authorizationHeader,
+                                                                 @RequestParam(required = false) Integer limit,
+                                                                 @RequestParam(required = false) String cursor,
+                                                                 @RequestParam(required = false) String category,
+                                                                 @RequestParam(required = false) String termType,
+                                                                 @RequestParam(required = false) String view,
+                                                                 @RequestParam(defaultValue = "false") boolean latest) {
+        String userId;
+        try {
+            userId = getUidFromToken(authorizationHeader);
+        } catch (FirebaseAuthException e) {
+            return completed(ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Failed to verify Firebase ID token: " + e.getMessage()));
+        }
+        System.out.println("##### /terms GET called for user: " + userId + " #####");
+        if (view != null && !"summary".equals(view) && !"full".equals(view)) {
+            return completed(ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid view specified."));
+        }
+        boolean summary = "summary".equals(view);
+        boolean paged = limit != null || cursor != null || category != null || termType != null;
+
+        CompletableFuture<ResponseEntity<?>> response;
+        if (latest) {
+            if (paged) {
+                return completed(ResponseEntity.status(HttpStatus.BAD_REQUEST).body("latest cannot be combined with paging or filters."));
+            }
+            response = summary ? ok(termService.findLatestSummariesByUserId(userId)) : ok(termService.findLatestByUserId(userId));
+        } else if (!paged) {
+            response = summary ? ok(termService.findSummariesByUserId(userId)) : ok(termService.findAllByUserId(userId));
+        } else {
+            int pageSize = Math.max(1, Math.min(limit == null ? DEFAULT_PAGE_SIZE : limit, MAX_PAGE_SIZE));
+            response = summary
+                    ? ok(termService.findSummaryPageByUserId(userId, category, termType, pageSize, cursor))
+                    : ok(termService.findPageByUserId(userId, category, termType, pageSize, cursor));
+        }
+        return response.exceptionally(e -> failure(e, "Error fetching terms: "));
+    }
+
+    // title, content, category, productName 에서 q 를 찾아 점수 순으로 limit 개씩 돌려준다 ({ items, nextCursor })
+    // 기동 시 색인 재구성이 끝나기 전에는 일부 약관이 빠진 결과 대신 503 을 돌려준다
+    @GetMapping("/search")
+    public CompletableFuture<ResponseEntity<?>> searchTerms(@RequestHeader("Authorization") String authorizationHeader,
+                                                            @RequestParam String q,
+                                                            @RequestParam(required = false) Integer limit,
+                                                            @RequestParam(required = false) String cursor) {
+        String userId;
         try {
-            String userId = getUidFromToken(authorizationHeader);
-            System.out.println("##### /terms GET called for user: " + userId + " #####");
-            List<Term> terms = termService.findAllByUserId(userId);
-            return ResponseEntity.ok(terms);
+            userId = getUidFromToken(authorizationHeader);
         } catch (FirebaseAuthException e) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Failed to verify Firebase ID token: " + e.getMessage());
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error fetching terms: " + e.getMessage());
+            return completed(ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Failed to verify Firebase ID token: " + e.getMessage()));
+        }
+        if (!termService.isSearchReady()) {
+            return completed(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Search index is being rebuilt. Try again later."));
+        }
+
+        int pageSize = Math.max(1, Math.min(limit == null ? DEFAULT_PAGE_SIZE : limit, MAX_PAGE_SIZE));
+        try {
+            return completed(ResponseEntity.ok(termService.search(userId, q, pageSize, cursor)));
+        } catch (InvalidTermRequestException e) {
+            return completed(ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage()));
+        }
+    }
+
+    // 사용자의 약관 전체를 NDJSON 으로 내려받는다. 끊기면 마지막으로 받은 줄의 id 를 after 로 넘겨 이어서 받는다
+    // gzip=true 이면 gzip 으로 압축한 파일(application/gzip)로 내려준다
+    // 오래 걸릴 수 있으므로 비동기 응답 시간 제한을 받지 않도록 요청 스레드에서 직접 쓴다
+    @GetMapping("/export")
+    public void exportTerms(@RequestHeader("Authorization") String authorizationHeader,
+                            @RequestParam(required = false) String after,
+                            @RequestParam(defaultValue = "false") boolean gzip,
+                            HttpServletResponse response) throws IOException {
+        String userId;
+        try {
+            userId = getUidFromToken(authorizationHeader);
+        } catch (FirebaseAuthException e) {
+            response.sendError(HttpStatus.UNAUTHORIZED.value(), "Token verification failed: " + e.getMessage());
+            return;
+        }
+
+        response.setContentType(gzip ? "application/gzip" : NDJSON.toString());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"terms.ndjson" + (gzip ? ".gz" : "") + "\"");
+        OutputStream out = response.getOutputStream();
+        if (gzip) {
+            GZIPOutputStream compressed = new GZIPOutputStream(out, 65536);
+            termService.exportTerms(userId, after, compressed);
+            compressed.finish();
+        } else {
+            termService.exportTerms(userId, after, out);
+        }
+        out.flush();
+    }
+
+    // /terms/export 로 받은 NDJSON 을 가져온다 (gzip=true 또는 Content-Encoding: gzip 이면 압축 해제)
+    // 끊겼을 때 이어서 가져오려면 처음부터 resumeToken 을 정해서 보내고, 같은 파일을 같은 토큰으로 다시 보낸다
+    @PostMapping("/import")
+    public ResponseEntity<?> importTerms(@RequestHeader("Authorization") String authorizationHeader,
+                                         @RequestParam(required = false) String resumeToken,
+                                         @RequestParam(defaultValue = "false") boolean gzip) {
+        String userId;
+        try {
+            userId = getUidFromToken(authorizationHeader);
+        } catch (FirebaseAuthException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token verification failed: " + e.getMessage());
+        }
+
+        boolean compressed = gzip || "gzip".equalsIgnoreCase(request.getHeader(HttpHeaders.CONTENT_ENCODING));
+        try (InputStream body = request.getInputStream();
+             InputStream in = compressed ? new GZIPInputStream(body, 65536) : body) {
+            return ResponseEntity.ok(termService.importTerms(userId, in, resumeToken));
+        } catch (InvalidTermRequestException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Failed to read import body: " + e.getMessage());
+        } catch (ExecutionException | InterruptedException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error importing terms: " + FirestoreFutures.unwrap(e).getMessage());
         }
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<?> getTermById(@PathVariable String id, @RequestHeader("Authorization") String authorizationHeader) {
+    public CompletableFuture<ResponseEntity<?>> getTermById(@PathVariable String id, @RequestHeader("Authorization") String authorizationHeader) {
+        String userId;
         try {
-            String userId = getUidFromToken(authorizationHeader);
-            Optional<Term> termOptional = termService.findById(id);
+            userId = getUidFromToken(authorizationHeader);
+        } catch (FirebaseAuthException e) {
+            return completed(ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token verification failed: " + e.getMessage()));
+        }
 
+        return termService.findById(id).<ResponseEntity<?>>thenApply(termOptional -> {
             if (termOptional.isEmpty()) {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Term not found with id: " + id);
             }
@@ -92,113 +240,238 @@ public class TermController {
             }
 
             return ResponseEntity.ok(term);
+        }).exceptionally(e -> failure(e, "Error fetching term: "));
+    }
+
+    // 이 약관이 속한 버전 체인의 모든 버전 (요약 필드만, versionNumber 내림차순)
+    @GetMapping("/{id}/versions")
+    public CompletableFuture<ResponseEntity<?>> getVersionHistory(@PathVariable String id,
+                                                                  @RequestHeader("Authorization") String authorizationHeader) {
+        String userId;
+        try {
+            userId = getUidFromToken(authorizationHeader);
         } catch (FirebaseAuthException e) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token verification failed: " + e.getMessage());
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error fetching term: " + e.getMessage());
+            return completed(ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token verification failed: " + e.getMessage()));
+        }
+
+        return termService.findById(id).thenCompose(termOptional -> {
+            if (termOptional.isEmpty()) {
+                return completed(ResponseEntity.status(HttpStatus.NOT_FOUND).body("Term not found with id: " + id));
+            }
+            Term term = termOptional.get();
+            if (!term.getUserId().equals(userId)) {
+                return completed(ResponseEntity.status(HttpStatus.FORBIDDEN).body("User does not have permission to access this term."));
+            }
+            return ok(termService.findVersionHistory(term));
+        }).exceptionally(e -> failure(e, "Error fetching version history: "));
+    }
+
+    // 이 약관의 조항과 거의 같은 조항을 가진 사용자의 다른 약관 (조항별, 유사도 순)
+    // includeVersions=true 이면 같은 버전 체인의 다른 버전도 포함한다
+    @GetMapping("/{id}/similar")
+    public CompletableFuture<ResponseEntity<?>> getSimilarClauses(@PathVariable String id,
+                                                                  @RequestParam(defaultValue = "0.5") double threshold,
+                                                                  @RequestParam(defaultValue = "false") boolean includeVersions,
+                                                                  @RequestHeader("Authorization") String authorizationHeader) {
+        String userId;
+        try {
+            userId = getUidFromToken(authorizationHeader);
+        } catch (FirebaseAuthException e) {
+            return completed(ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token verification failed: " + e.getMessage()));
+        }
+
+        return termService.findById(id).thenCompose(termOptional -> {
+            if (termOptional.isEmpty()) {
+                return completed(ResponseEntity.status(HttpStatus.NOT_FOUND).body("Term not found with id: " + id));
+            }
+            Term term = termOptional.get();
+            if (!term.getUserId().equals(userId)) {
+                return completed(ResponseEntity.status(HttpStatus.FORBIDDEN).body("User does not have permission to access this term."));
+            }
+            return ok(termService.findSimilarClauses(term, threshold, includeVersions));
+        }).exceptionally(e -> failure(e, "Error finding similar clauses: "));
+    }
+
+    // against 버전에서 id 버전으로 바뀐 부분만 돌려준다. against 가 없으면 id 버전의 원본(origin)과 비교한다
+    // granularity=line|word|clause, context=바뀐 부분 앞뒤로 함께 보여 줄 토큰 수
+    @GetMapping("/{id}/diff")
+    public CompletableFuture<ResponseEntity<?>> getTermDiff(@PathVariable String id,
+                                                            @RequestParam(required = false) String against,
+                                                            @RequestParam(defaultValue = "line") String granularity,
+                                                            @RequestParam(defaultValue = "3") int context,
+                                                            @RequestHeader("Authorization") String authorizationHeader) {
+        return diffResponse(id, against, granularity, context, authorizationHeader);
+    }
+
+    // format=ndjson: 요약 한 줄 뒤에 hunk 를 한 줄씩 내보낸다 (큰 차이를 받는 쪽에서 나눠 처리할 수 있도록)
+    @GetMapping(value = "/{id}/diff", params = "format=ndjson")
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> streamTermDiff(@PathVariable String id,
+                                                                                   @RequestParam(required = false) String against,
+                                                                                   @RequestParam(defaultValue = "line") String granularity,
+                                                                                   @RequestParam(defaultValue = "3") int context,
+                                                                                   @RequestHeader("Authorization") String authorizationHeader) {
+        return diffResponse(id, against, granularity, context, authorizationHeader).thenApply(response -> {
+            if (response.getBody() instanceof TermDiff) {
+                TermDiff diff = (TermDiff) response.getBody();
+                StreamingResponseBody body = out -> termService.writeDiff(diff, out);
+                return ResponseEntity.ok().contentType(NDJSON).body(body);
+            }
+            String message = String.valueOf(response.getBody());
+            StreamingResponseBody body = out -> out.write(message.getBytes(StandardCharsets.UTF_8));
+            return ResponseEntity.status(response.getStatusCode()).body(body);
+        });
+    }
+
+    private CompletableFuture<ResponseEntity<?>> diffResponse(String id, String against, String granularity, int context,
+                                                              String authorizationHeader) {
+        String userId;
+        try {
+            userId = getUidFromToken(authorizationHeader);
+        } catch (FirebaseAuthException e) {
+            return completed(ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token verification failed: " + e.getMessage()));
         }
+
+        // against 가 주어지면 두 문서를 동시에 읽는다
+        CompletableFuture<Optional<Term>> givenOther = against != null ? termService.findById(against) : null;
+        return termService.findById(id).thenCompose(termOptional -> {
+            if (termOptional.isEmpty()) {
+                return completed(ResponseEntity.status(HttpStatus.NOT_FOUND).body("Term not found with id: " + id));
+            }
+            Term term = termOptional.get();
+            if (!term.getUserId().equals(userId)) {
+                return completed(ResponseEntity.status(HttpStatus.FORBIDDEN).body("User does not have permission to access this term."));
+            }
+            String otherId = against != null ? against : term.getOrigin();
+            if (otherId == null) {
+                return completed(ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Term has no origin version to compare against."));
+            }
+
+            CompletableFuture<Optional<Term>> other = givenOther != null ? givenOther : termService.findById(otherId);
+            return other.thenCompose(otherOptional -> {
+                if (otherOptional.isEmpty()) {
+                    return completed(ResponseEntity.status(HttpStatus.NOT_FOUND).body("Term not found with id: " + otherId));
+                }
+                Term otherTerm = otherOptional.get();
+                if (!otherTerm.getUserId().equals(userId)) {
+                    return completed(ResponseEntity.status(HttpStatus.FORBIDDEN).body("User does not have permission to access this term."));
+                }
+                return ok(termService.diff(otherTerm, term, granularity, context));
+            });
+        }).exceptionally(e -> failure(e, "Error comparing terms: "));
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<?> deleteTerm(@PathVariable String id,
-                                        @RequestParam String type,
-                                        @RequestHeader("Authorization") String authorizationHeader) {
+    public CompletableFuture<ResponseEntity<?>> deleteTerm(@PathVariable String id,
+                                                           @RequestParam String type,
+                                                           @RequestHeader("Authorization") String authorizationHeader) {
+        String userId;
         try {
-            String userId = getUidFromToken(authorizationHeader);
-            Optional<Term> termOptional = termService.findById(id);
+            userId = getUidFromToken(authorizationHeader);
+        } catch (FirebaseAuthException e) {
+            return completed(ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token verification failed: " + e.getMessage()));
+        }
 
+        return termService.findById(id).thenCompose(termOptional -> {
             if (termOptional.isEmpty()) {
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Term not found with id: " + id);
+                return completed(ResponseEntity.status(HttpStatus.NOT_FOUND).body("Term not found with id: " + id));
             }
 
             Term term = termOptional.get();
             if (!term.getUserId().equals(userId)) {
-                return ResponseEntity.status(HttpStatus.FORBIDDEN).body("User does not have permission to delete this term.");
+                return completed(ResponseEntity.status(HttpStatus.FORBIDDEN).body("User does not have permission to delete this term."));
             }
 
             if ("latest".equals(type)) {
-                termService.deleteLatestVersion(id);
-                return ResponseEntity.ok().body("Latest version deleted successfully.");
+                return termService.deleteLatestVersion(id)
+                        .<ResponseEntity<?>>thenApply(ignored -> ResponseEntity.ok().body("Latest version deleted successfully."));
             } else if ("group".equals(type)) {
-                termService.deleteTermGroup(id);
-                return ResponseEntity.ok().body("Term group deleted successfully.");
+                return termService.deleteTermGroup(id)
+                        .<ResponseEntity<?>>thenApply(ignored -> ResponseEntity.ok().body("Term group deleted successfully."));
             } else {
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid delete type specified.");
+                return completed(ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid delete type specified."));
             }
-
-        } catch (FirebaseAuthException e) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token verification failed: " + e.getMessage());
-        } catch (IllegalStateException e) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error deleting term: " + e.getMessage());
-        }
+        }).exceptionally(e -> failure(e, "Error deleting term: "));
     }
 
     @PostMapping("/{id}/foreintermcreaterequest")
-    public ResponseEntity<?> foreinTermCreateRequest(@PathVariable String id,
-                                                     @RequestBody ForeinTermCreateRequestCommand command,
-                                                     @RequestHeader("Authorization") String authorizationHeader) {
+    public CompletableFuture<ResponseEntity<?>> foreinTermCreateRequest(@PathVariable String id,
+                                                                        @RequestBody ForeinTermCreateRequestCommand command,
+                                                                        @RequestHeader("Authorization") String authorizationHeader) {
+        String userId;
         try {
-            String userId = getUidFromToken(authorizationHeader);
-            Term originalTerm = termService.findById(id)
-                    .orElseThrow(() -> new Exception("Original term not found"));
+            userId = getUidFromToken(authorizationHeader);
+        } catch (FirebaseAuthException e) {
+            return completed(ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token verification failed: " + e.getMessage()));
+        }
+
+        return termService.findById(id).<ResponseEntity<?>>thenApply(termOptional -> {
+            if (termOptional.isEmpty()) {
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Original term not found");
+            }
+            Term originalTerm = termOptional.get();
 
             if (!originalTerm.getUserId().equals(userId)) {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN).body("User does not have permission for this term");
             }
-            
+
             // TODO: foreinTermCreateRequest 로직을 TermService로 이동해야 함
             // originalTerm.foreinTermCreateRequest(command);
             // termService.save(originalTerm);
 
             return ResponseEntity.ok(originalTerm);
-        } catch (FirebaseAuthException e) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token verification failed: " + e.getMessage());
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
-        }
+        }).exceptionally(e -> failure(e, ""));
     }
 
     @PostMapping("/{id}/ai-modify")
-    public ResponseEntity<?> aiTermModifyRequest(@PathVariable String id,
-                                                 @RequestBody AiTermModifyRequestCommand command,
-                                                 @RequestHeader("Authorization") String authorizationHeader) {
+    public CompletableFuture<ResponseEntity<?>> aiTermModifyRequest(@PathVariable String id,
+                                                                    @RequestBody AiTermModifyRequestCommand command,
+                                                                    @RequestHeader("Authorization") String authorizationHeader) {
+        String userId;
         try {
-            String userId = getUidFromToken(authorizationHeader);
-            Term originalTerm = termService.findById(id)
-                    .orElseThrow(() -> new Exception("Original term not found"));
+            userId = getUidFromToken(authorizationHeader);
+        } catch (FirebaseAuthException e) {
+            return completed(ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token verification failed: " + e.getMessage()));
+        }
+
+        return termService.findById(id).thenCompose(termOptional -> {
+            if (termOptional.isEmpty()) {
+                return completed(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Original term not found"));
+            }
+            Term originalTerm = termOptional.get();
 
             if (!originalTerm.getUserId().equals(userId)) {
-                return ResponseEntity.status(HttpStatus.FORBIDDEN).body("User does not have permission to modify this term");
+                return completed(ResponseEntity.status(HttpStatus.FORBIDDEN).body("User does not have permission to modify this term"));
             }
 
             Term newVersionTerm = termService.createNewVersionFrom(originalTerm);
             newVersionTerm.setUpdateType("AI_MODIFY");
             newVersionTerm.setModifiedAt(new Date());
-            
+
             // TODO: aiTermModifyRequest 로직을 TermService로 이동해야 함
-            
-            termService.save(newVersionTerm);
-            return ResponseEntity.ok(newVersionTerm);
-        } catch (FirebaseAuthException e) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token verification failed: " + e.getMessage());
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
-        }
+
+            return ok(termService.saveNewVersion(originalTerm, newVersionTerm));
+        }).exceptionally(e -> failure(e, ""));
     }
 
     @PutMapping("/{id}/direct-update")
-    public ResponseEntity<?> directUpdateTerm(@PathVariable String id,
-                                              @RequestBody TermDirectUpdateRequestCommand command,
-                                              @RequestHeader("Authorization") String authorizationHeader) {
+    public CompletableFuture<ResponseEntity<?>> directUpdateTerm(@PathVariable String id,
+                                                                 @RequestBody TermDirectUpdateRequestCommand command,
+                                                                 @RequestHeader("Authorization") String authorizationHeader) {
+        String userId;
         try {
-            String userId = getUidFromToken(authorizationHeader);
-            Term originalTerm = termService.findById(id)
-                    .orElseThrow(() -> new Exception("Original term not found"));
+            userId = getUidFromToken(authorizationHeader);
+        } catch (FirebaseAuthException e) {
+            return completed(ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token verification failed: " + e.getMessage()));
+        }
+
+        return termService.findById(id).thenCompose(termOptional -> {
+            if (termOptional.isEmpty()) {
+                return completed(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Original term not found"));
+            }
+            Term originalTerm = termOptional.get();
 
             if (!originalTerm.getUserId().equals(userId)) {
-                return ResponseEntity.status(HttpStatus.FORBIDDEN).body("User does not have permission to modify this term");
+                return completed(ResponseEntity.status(HttpStatus.FORBIDDEN).body("User does not have permission to modify this term"));
             }
 
             Term newVersionTerm = termService.createNewVersionFrom(originalTerm);
@@ -207,13 +480,8 @@ public class TermController {
             newVersionTerm.setTitle(command.getTitle());
             newVersionTerm.setContent(command.getContent());
             newVersionTerm.setMemo(command.getMemo());
-            
-            termService.save(newVersionTerm);
-            return ResponseEntity.ok(newVersionTerm);
-        } catch (FirebaseAuthException e) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token verification failed: " + e.getMessage());
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
-        }
+
+            return ok(termService.saveNewVersion(originalTerm, newVersionTerm));
+        }).exceptionally(e -> failure(e, ""));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,191 @@
+package self.service;
+
+import java.util.Arrays;
+
+/**
+ * Myers 의 O(ND) 차이 알고리즘을 선형 공간(양방향 탐색으로 가운데 지점을 찾아 분할)으로 구현한 것.
+ * 토큰은 미리 int 로 바꿔서 비교하므로 긴 약관(수만 줄/단어)도 문자열 비교 없이 처리한다.
+ *
+ * 결과는 편집 스크립트: getOps()[i] 는 EQUAL, DELETE(왼쪽 토큰), INSERT(오른쪽 토큰) 중 하나이고
+ * 순서대로 따라가면 왼쪽 시퀀스가 오른쪽 시퀀스가 된다.
+ * deadlineNanos 를 넘기면 남은 구간은 통째로 삭제+삽입으로 처리한다. (결과는 정확하지만 최소가 아닐 수 있음)
+ */
+public final class MyersDiff {
+
+    public static final byte EQUAL = 0;
+    public static final byte DELETE = 1;
+    public static final byte INSERT = 2;
+
+    private final int[] a;
+    private final int[] b;
+    private final long deadline;
+    private byte[] ops;
+    private int size;
+    private boolean timedOut;
+
+    private MyersDiff(int[] a, int[] b, long timeoutNanos) {
+        this.a = a;
+        this.b = b;
+        this.deadline = System.nanoTime() + timeoutNanos;
+        this.ops = new byte[Math.max(16, a.length + b.length)];
+    }
+
+    public static Result diff(int[] a, int[] b, long timeoutNanos) {
+        MyersDiff diff = new MyersDiff(a, b, timeoutNanos);
+        diff.compare(0, a.length, 0, b.length);
+        return new Result(Arrays.copyOf(diff.ops, diff.size), diff.timedOut);
+    }
+
+    public static class Result {
+        private final byte[] ops;
+        private final boolean approximate;
+
+        Result(byte[] ops, boolean approximate) {
+            this.ops = ops;
+            this.approximate = approximate;
+        }
+
+        public byte[] getOps() {
+            return ops;
+        }
+
+        // 시간 제한을 넘겨 일부 구간을 최소 차이로 나누지 못한 경우 true
+        public boolean isApproximate() {
+            return approximate;
+        }
+    }
+
+    private void compare(int aLo, int aHi, int bLo, int bHi) {
+        int prefix = 0;
+        while (aLo + prefix < aHi && bLo + prefix < bHi && a[aLo + prefix] == b[bLo + prefix]) {
+            prefix++;
+        }
+        emit(EQUAL, prefix);
+        aLo += prefix;
+        bLo += prefix;
+
+        int suffix = 0;
+        while (aLo < aHi - suffix && bLo < bHi - suffix && a[aHi - 1 - suffix] == b[bHi - 1 - suffix]) {
+            suffix++;
+        }
+        aHi -= suffix;
+        bHi -= suffix;
+
+        if (aLo == aHi) {
+            emit(INSERT, bHi - bLo);
+        } else if (bLo == bHi) {
+            emit(DELETE, aHi - aLo);
+        } else {
+            bisect(aLo, aHi, bLo, bHi);
+        }
+        emit(EQUAL, suffix);
+    }
+
+    // 앞/뒤에서 동시에 D-path 를 늘려 가다 겹치는 지점에서 둘로 나눈다. V 배열은 구간 길이에 비례 (선형 공간)
+    private void bisect(int aLo, int aHi, int bLo, int bHi) {
+        int n = aHi - aLo;
+        int m = bHi - bLo;
+        int maxD = (n + m + 1) / 2;
+        int vOffset = maxD;
+        int vLength = 2 * maxD + 2;
+        int[] v1 = new int[vLength];
+        int[] v2 = new int[vLength];
+        Arrays.fill(v1, -1);
+        Arrays.fill(v2, -1);
+        v1[vOffset + 1] = 0;
+        v2[vOffset + 1] = 0;
+        int delta = n - m;
+        // 두 길이의 차가 홀수이면 앞쪽 탐색에서, 짝수이면 뒤쪽 탐색에서 겹침을 확인한다
+        boolean front = (delta % 2 != 0);
+        int k1start = 0;
+        int k1end = 0;
+        int k2start = 0;
+        int k2end = 0;
+
+        for (int d = 0; d < maxD; d++) {
+            if (System.nanoTime() > deadline) {
+                timedOut = true;
+                break;
+            }
+            for (int k1 = -d + k1start; k1 <= d - k1end; k1 += 2) {
+                int k1Offset = vOffset + k1;
+                int x1;
+                if (k1 == -d || (k1 != d && v1[k1Offset - 1] < v1[k1Offset + 1])) {
+                    x1 = v1[k1Offset + 1];
+                } else {
+                    x1 = v1[k1Offset - 1] + 1;
+                }
+                int y1 = x1 - k1;
+                while (x1 < n && y1 < m && a[aLo + x1] == b[bLo + y1]) {
+                    x1++;
+                    y1++;
+                }
+                v1[k1Offset] = x1;
+                if (x1 > n) {
+                    k1end += 2;
+                } else if (y1 > m) {
+                    k1start += 2;
+                } else if (front) {
+                    int k2Offset = vOffset + delta - k1;
+                    if (k2Offset >= 0 && k2Offset < vLength && v2[k2Offset] != -1) {
+                        int x2 = n - v2[k2Offset];
+                        if (x1 >= x2) {
+                            split(aLo, aHi, bLo, bHi, x1, y1);
+                            return;
+                        }
+                    }
+                }
+            }
+
+            for (int k2 = -d + k2start; k2 <= d - k2end; k2 += 2) {
+                int k2Offset = vOffset + k2;
+                int x2;
+                if (k2 == -d || (k2 != d && v2[k2Offset - 1] < v2[k2Offset + 1])) {
+                    x2 = v2[k2Offset + 1];
+                } else {
+                    x2 = v2[k2Offset - 1] + 1;
+                }
+                int y2 = x2 - k2;
+                while (x2 < n && y2 < m && a[aHi - 1 - x2] == b[bHi - 1 - y2]) {
+                    x2++;
+                    y2++;
+                }
+                v2[k2Offset] = x2;
+                if (x2 > n) {
+                    k2end += 2;
+                } else if (y2 > m) {
+                    k2start += 2;
+                } else if (!front) {
+                    int k1Offset = vOffset + delta - k2;
+                    if (k1Offset >= 0 && k1Offset < vLength && v1[k1Offset] != -1) {
+                        int x1 = v1[k1Offset];
+                        int y1 = vOffset + x1 - k1Offset;
+                        if (x1 >= n - x2) {
+                            split(aLo, aHi, bLo, bHi, x1, y1);
+                            return;
+                        }
+                    }
+                }
+            }
+        }
+        // 시간 초과 또는 공통 부분 없음
+        emit(DELETE, n);
+        emit(INSERT, m);
+    }
+
+    private void split(int aLo, int aHi, int bLo, int bHi, int x, int y) {
+        compare(aLo, aLo + x, bLo, bLo + y);
+        compare(aLo + x, aHi, bLo + y, bHi);
+    }
+
+    private void emit(byte op, int count) {
+        if (count <= 0) {
+            return;
+        }
+        if (size + count > ops.length) {
+            ops = Arrays.copyOf(ops, Math.max(ops.length * 2, size + count));
+        }
+        Arrays.fill(ops, size, size + count, op);
+        size += count;
+    }
+}
@@ -0,0 +1,240 @@
+package self.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import self.domain.InvalidTermRequestException;
+import self.domain.Term;
+import self.domain.TermClauses;
+import self.domain.TermDiff;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 두 버전 content 의 차이를 계산한다. (GET /terms/{id}/diff)
+ *
+ * - 토큰 단위: line(줄), word(어절/공백/문장부호), clause(조항·문장: 줄바꿈, 문장 끝, "제N조(" 와 ①~⑳ 앞에서 나눔)
+ * - 토큰을 int 로 바꾼 뒤 선형 공간 Myers 알고리즘({@link MyersDiff})으로 비교하고, 바뀐 부분과 앞뒤 context 토큰만 돌려준다
+ * - 저장된 버전의 content 는 바뀌지 않으므로(수정은 항상 새 버전) 결과를 (from, to, granularity, context) 기준으로 캐시한다.
+ *   문서를 통째로 다시 쓰는 가져오기만 evict 로 그 문서가 들어간 결과를 비운다
+ * - 지표: cache.gets{cache=termDiffs}
+ */
+@Service
+public class TermDiffService {
+
+    public static final String LINE = "line";
+    public static final String WORD = "word";
+    public static final String CLAUSE = "clause";
+
+    private final ObjectMapper objectMapper;
+    private final long timeoutNanos;
+    private final Cache<String, TermDiff> cache;
+
+    public TermDiffService(ObjectMapper objectMapper,
+                           MeterRegistry meterRegistry,
+                           @Value("${term.diff.timeout-millis:2000}") long timeoutMillis,
+                           @Value("${term.diff.cache-maximum-size:1000}") long cacheMaximumSize) {
+        this.objectMapper = objectMapper;
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(cacheMaximumSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "termDiffs");
+    }
+
+    /**
+     * from 을 to 로 바꾸는 차이. granularity 가 잘못되었으면 InvalidTermRequestException.
+     */
+    public TermDiff diff(Term from, Term to, String granularity, int context) {
+        if (!LINE.equals(granularity) && !WORD.equals(granularity) && !CLAUSE.equals(granularity)) {
+            throw new InvalidTermRequestException("Invalid granularity specified.");
+        }
+        if (context < 0) {
+            throw new InvalidTermRequestException("context must not be negative.");
+        }
+        String key = from.getId() + ":" + to.getId() + ":" + granularity + ":" + context;
+        return cache.get(key, k -> compute(from, to, granularity, context));
+    }
+
+    // from 이나 to 가 ids 에 있는 결과를 모두 비운다 (키: from:to:granularity:context)
+    public void evict(Collection<String> ids) {
+        cache.asMap().keySet().removeIf(key -> {
+            String[] parts = key.split(":", 3);
+            return ids.contains(parts[0]) || ids.contains(parts[1]);
+        });
+    }
+
+    /**
+     * 스트리밍 형식(NDJSON): 첫 줄은 hunks 를 뺀 요약, 이후 hunk 하나당 한 줄.
+     * 큰 차이도 전체 JSON 문자열을 만들지 않고 hunk 단위로 바로 내보낸다.
+     */
+    public void writeNdjson(TermDiff diff, OutputStream out) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.setRootValueSeparator(null);
+
+        generator.writeStartObject();
+        generator.writeStringField("from", diff.getFrom());
+        generator.writeStringField("to", diff.getTo());
+        generator.writeStringField("granularity", diff.getGranularity());
+        generator.writeNumberField("deletions", diff.getDeletions());
+        generator.writeNumberField("insertions", diff.getInsertions());
+        generator.writeBooleanField("approximate", diff.isApproximate());
+        generator.writeNumberField("hunkCount", diff.getHunks().size());
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+
+        for (TermDiff.Hunk hunk : diff.getHunks()) {
+            objectMapper.writeValue(generator, hunk);
+            generator.writeRaw('\n');
+            generator.flush();
+        }
+        generator.close();
+    }
+
+    private TermDiff compute(Term from, Term to, String granularity, int context) {
+        List<String> fromTokens = tokenize(from.getContent(), granularity);
+        List<String> toTokens = tokenize(to.getContent(), granularity);
+
+        // 같은 토큰은 같은 번호로 바꿔 비교 비용을 int 비교로 줄인다
+        Map<String, Integer> ids = new HashMap<>();
+        int[] a = intern(fromTokens, ids);
+        int[] b = intern(toTokens, ids);
+        MyersDiff.Result result = MyersDiff.diff(a, b, timeoutNanos);
+        byte[] ops = result.getOps();
+
+        int deletions = 0;
+        int insertions = 0;
+        for (byte op : ops) {
+            if (op == MyersDiff.DELETE) {
+                deletions++;
+            } else if (op == MyersDiff.INSERT) {
+                insertions++;
+            }
+        }
+
+        List<TermDiff.Hunk> hunks = new ArrayList<>();
+        int cursor = 0;
+        int fromPos = 0;
+        int toPos = 0;
+        int k = 0;
+        while (k < ops.length) {
+            if (ops[k] == MyersDiff.EQUAL) {
+                k++;
+                continue;
+            }
+            // 바뀐 부분 사이의 같은 구간이 2 * context 이하이면 한 hunk 로 합친다
+            int lastChange = k;
+            for (int j = k + 1; j < ops.length && j - lastChange <= 2 * context; j++) {
+                if (ops[j] != MyersDiff.EQUAL) {
+                    lastChange = j;
+                }
+            }
+            int start = Math.max(cursor, k - context);
+            int end = Math.min(ops.length, lastChange + 1 + context);
+            for (; cursor < start; cursor++) {
+                fromPos += ops[cursor] != MyersDiff.INSERT ? 1 : 0;
+                toPos += ops[cursor] != MyersDiff.DELETE ? 1 : 0;
+            }
+            TermDiff.Hunk hunk = hunk(ops, fromTokens, toTokens, start, end, fromPos, toPos);
+            hunks.add(hunk);
+            fromPos += hunk.getFromCount();
+            toPos += hunk.getToCount();
+            cursor = end;
+            k = end;
+        }
+
+        return new TermDiff(from.getId(), to.getId(), granularity, deletions, insertions, result.isApproximate(), hunks);
+    }
+
+    private static TermDiff.Hunk hunk(byte[] ops, List<String> fromTokens, List<String> toTokens,
+                                      int start, int end, int fromStart, int toStart) {
+        List<TermDiff.Change> changes = new ArrayList<>();
+        int fromPos = fromStart;
+        int toPos = toStart;
+        int i = start;
+        while (i < end) {
+            byte op = ops[i];
+            StringBuilder text = new StringBuilder();
+            while (i < end && ops[i] == op) {
+                if (op == MyersDiff.INSERT) {
+                    text.append(toTokens.get(toPos++));
+                } else {
+                    text.append(fromTokens.get(fromPos++));
+                    if (op == MyersDiff.EQUAL) {
+                        toPos++;
+                    }
+                }
+                i++;
+            }
+            String symbol = op == MyersDiff.EQUAL ? "=" : op == MyersDiff.DELETE ? "-" : "+";
+            changes.add(new TermDiff.Change(symbol, text.toString()));
+        }
+        return new TermDiff.Hunk(fromStart, fromPos - fromStart, toStart, toPos - toStart, changes);
+    }
+
+    private static int[] intern(List<String> tokens, Map<String, Integer> ids) {
+        int[] result = new int[tokens.size()];
+        for (int i = 0; i < result.length; i++) {
+            Integer id = ids.get(tokens.get(i));
+            if (id == null) {
+                id = ids.size();
+                ids.put(tokens.get(i), id);
+            }
+            result[i] = id;
+        }
+        return result;
+    }
+
+    // 토큰을 이으면 원문이 그대로 나오도록 공백과 줄바꿈도 토큰에 포함한다
+    static List<String> tokenize(String text, String granularity) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        if (LINE.equals(granularity)) {
+            int start = 0;
+            for (int i = 0; i < text.length(); i++) {
+                if (text.charAt(i) == '\n') {
+                    tokens.add(text.substring(start, i + 1));
+                    start = i + 1;
+                }
+            }
+            if (start < text.length()) {
+                tokens.add(text.substring(start));
+            }
+        } else if (WORD.equals(granularity)) {
+            int start = 0;
+            for (int i = 1; i <= text.length(); i++) {
+                if (i == text.length() || wordClass(text.charAt(i)) != wordClass(text.charAt(i - 1))
+                        || wordClass(text.charAt(i - 1)) == 2) {
+                    tokens.add(text.substring(start, i));
+                    start = i;
+                }
+            }
+        } else {
+            tokens.addAll(TermClauses.split(text));
+        }
+        return tokens;
+    }
+
+    // 0: 글자/숫자, 1: 공백, 2: 그 밖의 문자(문장부호 등은 한 글자씩 토큰)
+    private static int wordClass(char c) {
+        if (Character.isLetterOrDigit(c)) {
+            return 0;
+        }
+        return Character.isWhitespace(c) ? 1 : 2;
+    }
+}
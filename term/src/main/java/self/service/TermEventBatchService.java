@@ -0,0 +1,171 @@
+package self.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import self.domain.*;
+import self.infra.AbstractEvent;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Kafka 에서 한 번에 받은 TermCreated / ForeignTermCreated / AiTermModified 이벤트를 묶어서 반영한다. (PolicyBatchHandler)
+ *
+ * 1. 이벤트를 약관 ID 별로 받은 순서대로 모은다
+ * 2. 참조된 약관을 getAll 한 번으로 읽는다 (없는 약관의 이벤트는 건너뜀 — 한 건씩 처리할 때와 같음)
+ * 3. TermCreated 만 받은 약관은 risk/feedback 의 마지막 값만 batch write 로 한 번에 갱신한다.
+ *    batch 가 실패하면 그 batch 의 약관을 한 건씩 다시 써서 실패한 약관만 골라낸다
+ * 4. 새 버전을 만드는 이벤트가 섞인 약관은 그 약관의 이벤트를 받은 순서대로 하나씩 반영하고, 약관끼리는 동시에 처리한다.
+ *    새 버전 ID 는 이벤트마다 정해져 있어(versionId) 같은 이벤트를 다시 처리해도 버전이 두 번 생기지 않는다.
+ *    번역본은 자기 체인의 루트로 저장하므로 번호 트랜잭션을 거치지 않는다 (TermService.saveForeignVersion)
+ *
+ * 실패는 약관 단위로 모아 돌려준다. 한 약관이 실패해도 다른 약관의 반영은 계속된다.
+ */
+@Service
+public class TermEventBatchService {
+
+    @Autowired
+    private TermRepository termRepository;
+
+    @Autowired
+    private TermService termService;
+
+    public List<FailedTerm> apply(List<TermEvent> events) throws ExecutionException, InterruptedException {
+        Map<String, List<TermEvent>> byTerm = new LinkedHashMap<>();
+        for (TermEvent event : events) {
+            byTerm.computeIfAbsent(event.termId, key -> new ArrayList<>()).add(event);
+        }
+        Map<String, Term> terms = FirestoreFutures.await(termRepository.findAllByIdAsync(byTerm.keySet()));
+
+        List<Term> analysedOnly = new ArrayList<>();
+        Map<String, CompletableFuture<Void>> inOrder = new LinkedHashMap<>();
+        for (Map.Entry<String, List<TermEvent>> entry : byTerm.entrySet()) {
+            Term term = terms.get(entry.getKey());
+            if (term == null) {
+                System.out.println("##### batch listener: term " + entry.getKey() + " not found, skipping "
+                        + entry.getValue().size() + " events #####");
+                continue;
+            }
+            if (entry.getValue().stream().allMatch(event -> event.payload instanceof TermCreated)) {
+                TermCreated last = (TermCreated) entry.getValue().get(entry.getValue().size() - 1).payload;
+                term.setRisk(last.getTermRisk());
+                term.setFeedback(last.getTermFeedback());
+                analysedOnly.add(term);
+            } else {
+                inOrder.put(entry.getKey(), applyInOrder(term, entry.getValue()));
+            }
+        }
+
+        Map<String, Throwable> failures = saveAnalyses(analysedOnly);
+        for (Map.Entry<String, CompletableFuture<Void>> entry : inOrder.entrySet()) {
+            try {
+                FirestoreFutures.await(entry.getValue());
+            } catch (ExecutionException e) {
+                failures.put(entry.getKey(), FirestoreFutures.unwrap(e));
+            }
+        }
+
+        List<FailedTerm> failed = new ArrayList<>();
+        failures.forEach((termId, cause) -> failed.add(new FailedTerm(byTerm.get(termId).get(0), cause)));
+        return failed;
+    }
+
+    // 약관 하나의 이벤트를 받은 순서대로 반영한다. 이벤트를 버전으로 바꾸다 실패해도(잘못된 원본 값 등) 이 약관만 실패한다
+    private CompletableFuture<Void> applyInOrder(Term term, List<TermEvent> events) {
+        CompletableFuture<Void> chain = CompletableFuture.completedFuture(null);
+        for (TermEvent event : events) {
+            chain = chain.thenCompose(ignored -> applyOne(term, event));
+        }
+        return chain;
+    }
+
+    private CompletableFuture<Void> applyOne(Term term, TermEvent event) {
+        if (event.payload instanceof TermCreated) {
+            term.setRisk(((TermCreated) event.payload).getTermRisk());
+            term.setFeedback(((TermCreated) event.payload).getTermFeedback());
+            return termRepository.saveAnalysesAsync(List.of(term)).thenAccept(result -> {
+                if (!result.isSuccessful()) {
+                    throw new IllegalStateException("Failed to save analysis: " + result.getFailures().get(term.getId()));
+                }
+            });
+        }
+        if (event.payload instanceof ForeignTermCreated) {
+            Term foreign = termService.createForeignVersionFrom(term, (ForeignTermCreated) event.payload);
+            foreign.setId(event.versionId);
+            return termService.saveForeignVersion(foreign).thenAccept(saved -> { });
+        }
+        if (event.payload instanceof AiTermModified) {
+            Term version = termService.createModifiedVersionFrom(term, (AiTermModified) event.payload);
+            version.setId(event.versionId);
+            return termRepository.saveNewVersionAsync(term, version).thenAccept(saved -> { });
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    // 실패한 약관 ID -> 원인. 묶어서 쓴 batch 가 실패하면 그 batch 의 약관을 한 건씩 다시 써서 실패한 약관만 남긴다
+    private Map<String, Throwable> saveAnalyses(List<Term> analysed) throws ExecutionException, InterruptedException {
+        Map<String, Throwable> failures = new LinkedHashMap<>();
+        if (analysed.isEmpty()) {
+            return failures;
+        }
+        TermBatchResult result = FirestoreFutures.await(termRepository.saveAnalysesAsync(analysed));
+        if (result.isSuccessful()) {
+            return failures;
+        }
+        Map<String, CompletableFuture<TermBatchResult>> retried = new LinkedHashMap<>();
+        for (Term term : analysed) {
+            if (result.getFailures().containsKey(term.getId())) {
+                retried.put(term.getId(), termRepository.saveAnalysesAsync(List.of(term)));
+            }
+        }
+        for (Map.Entry<String, CompletableFuture<TermBatchResult>> entry : retried.entrySet()) {
+            TermBatchResult single = FirestoreFutures.await(entry.getValue());
+            if (!single.isSuccessful()) {
+                failures.put(entry.getKey(), new IllegalStateException("Failed to save analysis: "
+                        + single.getFailures().get(entry.getKey())));
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * 약관 하나에 대한 이벤트. index 는 poll 한 묶음 안에서의 위치,
+     * versionId 는 이 이벤트로 새 버전을 만들 때 쓸 문서 ID (메시지마다 고정된 값)
+     */
+    public static class TermEvent {
+        private final int index;
+        private final String termId;
+        private final AbstractEvent payload;
+        private final String versionId;
+
+        public TermEvent(int index, String termId, AbstractEvent payload, String versionId) {
+            this.index = index;
+            this.termId = termId;
+            this.payload = payload;
+            this.versionId = versionId;
+        }
+    }
+
+    /**
+     * 반영하지 못한 약관. index 는 그 약관의 첫 이벤트 위치 (그 위치부터 다시 받으면 이 약관의 이벤트를 모두 다시 처리한다)
+     */
+    public static class FailedTerm {
+        private final String termId;
+        private final int index;
+        private final Throwable cause;
+
+        FailedTerm(TermEvent firstEvent, Throwable cause) {
+            this.termId = firstEvent.termId;
+            this.index = firstEvent.index;
+            this.cause = cause;
+        }
+
+        public String getTermId() { return termId; }
+        public int getIndex() { return index; }
+        public Throwable getCause() { return cause; }
+    }
+}
@@ -5,11 +5,18 @@ import org.springframework.cloud.stream.function.StreamBridge;
 import org.springframework.stereotype.Service;
 import self.domain.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
 
 @Service
 public class TermService {
@@ -17,21 +24,128 @@ public class TermService {
     @Autowired
     private TermRepository termRepository;
 
+    @Autowired
+    private TermDiffService termDiffService;
+
+    @Autowired
+    private TermSearchIndex termSearchIndex;
+
+    @Autowired
+    private TermClauseIndex termClauseIndex;
+
+    @Autowired
+    private TermTransferService termTransferService;
+
     // Kafka를 사용하지 않으므로 StreamBridge는 주석 처리 또는 삭제합니다.
     // @Autowired
     // private StreamBridge streamBridge;
 
-    public Term createTerm(Term term) throws ExecutionException, InterruptedException {
+    // 컨트롤러에서 쓰는 메소드는 CompletableFuture 를 돌려주고 Firestore 응답을 기다리는 동안 스레드를 점유하지 않는다
+    public CompletableFuture<Term> createTerm(Term term) {
         term.setCreatedAt(new Date());
-        return this.save(term);
+        // 새 버전 체인의 루트: 자기 자신의 ID가 groupId
+        if (term.getId() == null || term.getId().isEmpty()) {
+            term.setId(termRepository.newId());
+        }
+        term.setGroupId(term.getId());
+        term.setLatest(true);
+        term.setVersionNumber(1L);
+        return termRepository.saveAsync(term);
+    }
+
+    public CompletableFuture<Optional<Term>> findById(String id) {
+        return termRepository.findByIdAsync(id);
+    }
+
+    public CompletableFuture<List<Term>> findAllByUserId(String userId) {
+        return termRepository.findByUserIdAsync(userId);
+    }
+
+    public CompletableFuture<TermPage<Term>> findPageByUserId(String userId, String category, String termType, int limit, String cursor) {
+        return termRepository.findPageByUserIdAsync(userId, category, termType, limit, cursor);
+    }
+
+    public CompletableFuture<List<TermSummary>> findSummariesByUserId(String userId) {
+        return termRepository.findSummariesByUserIdAsync(userId);
+    }
+
+    public CompletableFuture<TermPage<TermSummary>> findSummaryPageByUserId(String userId, String category, String termType, int limit, String cursor) {
+        return termRepository.findSummaryPageByUserIdAsync(userId, category, termType, limit, cursor);
+    }
+
+    public CompletableFuture<List<Term>> findLatestByUserId(String userId) {
+        return termRepository.findLatestByUserIdAsync(userId);
+    }
+
+    public CompletableFuture<List<TermSummary>> findLatestSummariesByUserId(String userId) {
+        return termRepository.findLatestSummariesByUserIdAsync(userId);
+    }
+
+    // createNewVersionFrom 으로 만든 버전은 이 메소드로 저장해야 원본의 latest 가 함께 갱신된다
+    // version, versionNumber, origin 은 저장 시점의 체인 상태로 다시 정해진다 (동시에 고쳐도 번호가 겹치지 않음)
+    public CompletableFuture<Term> saveNewVersion(Term originalTerm, Term newVersionTerm) {
+        return termRepository.saveNewVersionAsync(originalTerm, newVersionTerm);
+    }
+
+    // 버전 체인의 모든 버전(요약)을 번호 내림차순으로. groupId 백필 전의 중간 버전이면 IllegalStateException
+    public CompletableFuture<List<TermSummary>> findVersionHistory(Term term) {
+        String groupId = groupIdOf(term);
+        if (groupId == null) {
+            CompletableFuture<List<TermSummary>> failed = new CompletableFuture<>();
+            failed.completeExceptionally(new IllegalStateException("Version history is not available until the group backfill has run."));
+            return failed;
+        }
+        return termRepository.findVersionHistoryAsync(term.getUserId(), groupId);
+    }
+
+    // 기동 시 색인 재구성이 끝나기 전에는 검색 결과에 빠진 문서가 있을 수 있다
+    public boolean isSearchReady() {
+        return termSearchIndex.isReady();
+    }
+
+    // 메모리 색인만 사용하므로 Firestore 를 기다리지 않는다. cursor 는 이전 응답의 nextCursor (결과 목록에서의 위치)
+    public TermPage<TermSearchHit> search(String userId, String query, int limit, String cursor) {
+        int offset = 0;
+        if (cursor != null && !cursor.isEmpty()) {
+            try {
+                offset = Integer.parseInt(cursor);
+            } catch (NumberFormatException e) {
+                throw new InvalidTermRequestException("Invalid cursor", e);
+            }
+            if (offset < 0) {
+                throw new InvalidTermRequestException("Invalid cursor");
+            }
+        }
+        return termSearchIndex.search(userId, query, limit, offset);
     }
 
-    public Optional<Term> findById(String id) throws ExecutionException, InterruptedException {
-        return termRepository.findById(id);
+    // 조항마다 사용자의 다른 약관에 있는 유사 조항 (메모리 색인, 서명 계산은 공용 풀에서)
+    public CompletableFuture<TermSimilarClauses> findSimilarClauses(Term term, double threshold, boolean includeVersions) {
+        if (threshold <= 0 || threshold > 1) {
+            CompletableFuture<TermSimilarClauses> failed = new CompletableFuture<>();
+            failed.completeExceptionally(new InvalidTermRequestException("threshold must be in (0, 1]."));
+            return failed;
+        }
+        return CompletableFuture.supplyAsync(() -> termClauseIndex.similar(term, threshold, includeVersions));
     }
 
-    public List<Term> findAllByUserId(String userId) throws ExecutionException, InterruptedException {
-        return termRepository.findByUserId(userId);
+    // from 을 to 로 바꾸는 차이. 계산은 Firestore 콜백 스레드가 아닌 공용 풀에서 한다
+    public CompletableFuture<TermDiff> diff(Term from, Term to, String granularity, int context) {
+        return CompletableFuture.supplyAsync(() -> termDiffService.diff(from, to, granularity, context));
+    }
+
+    public void writeDiff(TermDiff diff, OutputStream out) throws IOException {
+        termDiffService.writeNdjson(diff, out);
+    }
+
+    // 내보내기/가져오기는 요청 스레드에서 스트림을 직접 읽고 쓴다 (약관 수에 따라 오래 걸릴 수 있어 비동기 응답 시간 제한을 받지 않도록)
+    public long exportTerms(String userId, String after, OutputStream out) throws IOException {
+        return termTransferService.exportTerms(userId, after, out);
+    }
+
+    public TermImportResult importTerms(String userId, InputStream in, String resumeToken)
+            throws IOException, ExecutionException, InterruptedException {
+        return termTransferService.importTerms(userId, in, resumeToken);
     }
 
     public Term save(Term term) throws ExecutionException, InterruptedException {
@@ -43,51 +157,91 @@ public class TermService {
         return term;
     }
 
-    public void deleteLatestVersion(String id) throws ExecutionException, InterruptedException {
-        Optional<Term> termOptional = termRepository.findById(id);
-        if (termOptional.isPresent()) {
-            Term termToDelete = termOptional.get();
-            // 이 버전이 다른 버전에 의해 origin으로 참조되고 있는지 확인
-            List<Term> children = termRepository.findByOrigin(termToDelete.getId());
-            if (!children.isEmpty()) {
-                throw new IllegalStateException("Cannot delete a version that is an origin for another version.");
+    // 이 버전이 다른 버전의 origin 이면(latest=false) IllegalStateException 으로 실패한다
+    public CompletableFuture<Void> deleteLatestVersion(String id) {
+        return termRepository.findByIdAsync(id).thenCompose(termOptional -> termOptional.isPresent()
+                ? termRepository.deleteLatestVersionAsync(termOptional.get())
+                : CompletableFuture.<Void>completedFuture(null));
+    }
+
+    public CompletableFuture<Void> deleteTermGroup(String id) {
+        return termRepository.findByIdAsync(id).thenCompose(termOptional -> {
+            if (termOptional.isEmpty()) {
+                return CompletableFuture.<Void>completedFuture(null); // Or throw an exception
             }
-            termRepository.delete(termToDelete);
-        }
+            Term currentTerm = termOptional.get();
+            String userId = currentTerm.getUserId();
+
+            // groupId 가 있으면 체인 길이와 관계없이 쿼리 한 번으로 모든 버전을 찾는다
+            if (currentTerm.getGroupId() != null) {
+                String groupId = currentTerm.getGroupId();
+                return termRepository.findByGroupIdAsync(userId, groupId).thenCompose(versions -> {
+                    if (versions.stream().anyMatch(version -> version.getId().equals(groupId))) {
+                        return deleteAllOrFail(versions);
+                    }
+                    // 루트에 groupId 가 기록되기 전에 만든 체인: 루트와 groupId 없는 버전은 origin 을 따라 찾는다
+                    return termRepository.findByIdAsync(groupId)
+                            .thenCompose(root -> root.isPresent()
+                                    ? findAllVersionsRecursive(root.get())
+                                    : CompletableFuture.completedFuture(List.<Term>of()))
+                            .thenCompose(legacy -> deleteAllOrFail(ownedBy(userId, merge(versions, legacy))));
+                });
+            }
+
+            // groupId 가 채워지기 전(백필 전)의 문서: origin 을 따라 루트를 찾고 자식을 재귀 조회
+            return findRoot(currentTerm)
+                    .thenCompose(this::findAllVersionsRecursive)
+                    .thenCompose(versions -> deleteAllOrFail(ownedBy(userId, versions)));
+        });
     }
 
-    public void deleteTermGroup(String id) throws ExecutionException, InterruptedException {
-        Optional<Term> termOptional = termRepository.findById(id);
-        if (termOptional.isEmpty()) {
-            return; // Or throw an exception
-        }
-        Term currentTerm = termOptional.get();
-
-        // Find the root of the version chain
-        Term rootTerm = currentTerm;
-        while (rootTerm.getOrigin() != null) {
-            Optional<Term> parentOptional = termRepository.findById(rootTerm.getOrigin());
-            if (parentOptional.isEmpty()) {
-                break;
+    private CompletableFuture<Void> deleteAllOrFail(List<Term> terms) {
+        return termRepository.deleteAllAsync(terms).thenAccept(result -> {
+            if (!result.isSuccessful()) {
+                throw new RuntimeException("Failed to delete " + result.getFailures().size() + " of " + terms.size()
+                        + " versions: " + result.getFailures());
             }
-            rootTerm = parentOptional.get();
-        }
+        });
+    }
 
-        // Find all versions in the group starting from the root
-        List<Term> allVersions = new ArrayList<>();
-        findAllVersionsRecursive(rootTerm, allVersions);
+    private static List<Term> merge(List<Term> versions, List<Term> more) {
+        Map<String, Term> byId = new LinkedHashMap<>();
+        versions.forEach(version -> byId.put(version.getId(), version));
+        more.forEach(version -> byId.putIfAbsent(version.getId(), version));
+        return new ArrayList<>(byId.values());
+    }
 
-        for (Term term : allVersions) {
-            termRepository.delete(term);
-        }
+    // origin 으로 이어져 있어도 다른 사용자의 문서는 지우지 않는다
+    private static List<Term> ownedBy(String userId, List<Term> versions) {
+        return versions.stream()
+                .filter(version -> userId.equals(version.getUserId()))
+                .collect(Collectors.toList());
     }
 
-    private void findAllVersionsRecursive(Term term, List<Term> allVersions) throws ExecutionException, InterruptedException {
-        allVersions.add(term);
-        List<Term> children = termRepository.findByOrigin(term.getId());
-        for (Term child : children) {
-            findAllVersionsRecursive(child, allVersions);
+    // Find the root of the version chain
+    private CompletableFuture<Term> findRoot(Term term) {
+        if (term.getOrigin() == null) {
+            return CompletableFuture.completedFuture(term);
         }
+        return termRepository.findByIdAsync(term.getOrigin())
+                .thenCompose(parentOptional -> parentOptional.isPresent()
+                        ? findRoot(parentOptional.get())
+                        : CompletableFuture.completedFuture(term));
+    }
+
+    // Find all versions in the group starting from the root (같은 깊이의 자식들은 동시에 조회)
+    private CompletableFuture<List<Term>> findAllVersionsRecursive(Term term) {
+        return termRepository.findByOriginAsync(term.getId()).thenCompose(children -> {
+            List<CompletableFuture<List<Term>>> subtrees = children.stream()
+                    .map(this::findAllVersionsRecursive)
+                    .collect(Collectors.toList());
+            return CompletableFuture.allOf(subtrees.toArray(new CompletableFuture[0])).thenApply(ignored -> {
+                List<Term> allVersions = new ArrayList<>();
+                allVersions.add(term);
+                subtrees.forEach(subtree -> allVersions.addAll(subtree.join()));
+                return allVersions;
+            });
+        });
     }
 
 
@@ -107,14 +261,9 @@ public class TermService {
 
     public void registerTerm(ForeignTermCreated event) throws ExecutionException, InterruptedException {
         termRepository.findById(event.getTermId().toString()).ifPresent(originalTerm -> {
-            Term newForeignTerm = new Term();
-            newForeignTerm.setUserId(originalTerm.getUserId());
-            newForeignTerm.setTitle(event.getTermTile());
-            newForeignTerm.setContent(event.getTermContent());
-            newForeignTerm.setVersion("v1");
-            newForeignTerm.setOrigin(originalTerm.getId());
+            Term newForeignTerm = createForeignVersionFrom(originalTerm, event);
             try {
-                termRepository.save(newForeignTerm);
+                FirestoreFutures.await(saveForeignVersion(newForeignTerm));
             } catch (ExecutionException | InterruptedException e) {
                 throw new RuntimeException(e);
             }
@@ -123,17 +272,46 @@ public class TermService {
     
     public void saveModifiedTerm(AiTermModified event) throws ExecutionException, InterruptedException {
         termRepository.findById(event.getTermId().toString()).ifPresent(originalTerm -> {
-            Term newVersionTerm = createNewVersionFrom(originalTerm);
-            newVersionTerm.setContent(event.getTermContent());
-            newVersionTerm.setUpdateType("AI_MODIFY");
+            Term newVersionTerm = createModifiedVersionFrom(originalTerm, event);
             try {
-                termRepository.save(newVersionTerm);
+                termRepository.saveNewVersion(originalTerm, newVersionTerm);
             } catch (ExecutionException | InterruptedException e) {
                 throw new RuntimeException(e);
             }
         });
     }
 
+    // 번역본. 아래 메소드들은 Kafka 이벤트를 묶어서 처리하는 TermEventBatchService 도 사용한다
+    // 번역본은 원본 체인의 다음 버전이 아니라 자기 체인의 루트(v1)다. origin 은 번역한 원본을 가리킨다
+    public Term createForeignVersionFrom(Term originalTerm, ForeignTermCreated event) {
+        Term newForeignTerm = new Term();
+        newForeignTerm.setUserId(originalTerm.getUserId());
+        newForeignTerm.setTitle(event.getTermTile());
+        newForeignTerm.setContent(event.getTermContent());
+        newForeignTerm.setVersion("v1");
+        newForeignTerm.setVersionNumber(1L);
+        newForeignTerm.setLatest(true);
+        newForeignTerm.setCreatedAt(new Date());
+        newForeignTerm.setOrigin(originalTerm.getId());
+        return newForeignTerm;
+    }
+
+    // 원본의 latest 와 버전 카운터는 건드리지 않는다. 같은 ID 로 다시 저장하면(이벤트 재처리) 기존 문서를 그대로 둔다
+    public CompletableFuture<Term> saveForeignVersion(Term newForeignTerm) {
+        if (newForeignTerm.getId() == null || newForeignTerm.getId().isEmpty()) {
+            newForeignTerm.setId(termRepository.newId());
+        }
+        newForeignTerm.setGroupId(newForeignTerm.getId());
+        return termRepository.createIfAbsentAsync(newForeignTerm);
+    }
+
+    public Term createModifiedVersionFrom(Term originalTerm, AiTermModified event) {
+        Term newVersionTerm = createNewVersionFrom(originalTerm);
+        newVersionTerm.setContent(event.getTermContent());
+        newVersionTerm.setUpdateType("AI_MODIFY");
+        return newVersionTerm;
+    }
+
     public Term createNewVersionFrom(Term originalTerm) {
         if (originalTerm == null) {
             throw new IllegalArgumentException("Original term cannot be null");
@@ -149,10 +327,24 @@ public class TermService {
         newVersionTerm.setClient(originalTerm.getClient());
         newVersionTerm.setCreatedAt(originalTerm.getCreatedAt());
         
-        int currentVersion = Integer.parseInt(originalTerm.getVersion().replace("v", ""));
+        // 저장 전 임시 번호. 실제 번호는 saveNewVersion 이 체인 카운터에서 할당한다 (version 이 없거나 형식이 틀려도 실패하지 않음)
+        long currentVersion = originalTerm.getVersionNumber() != null
+                ? originalTerm.getVersionNumber()
+                : TermRepository.parseVersionNumber(originalTerm.getVersion());
         newVersionTerm.setVersion("v" + (currentVersion + 1));
+        newVersionTerm.setVersionNumber(currentVersion + 1);
         newVersionTerm.setOrigin(originalTerm.getId());
+        newVersionTerm.setGroupId(groupIdOf(originalTerm));
+        newVersionTerm.setLatest(true);
 
         return newVersionTerm;
     }
+
+    // 원본이 속한 체인의 groupId. 백필 전의 루트 문서는 자기 ID를 쓰고, 백필 전의 중간 버전이면 null (백필 시 채워짐)
+    private String groupIdOf(Term originalTerm) {
+        if (originalTerm.getGroupId() != null) {
+            return originalTerm.getGroupId();
+        }
+        return originalTerm.getOrigin() == null ? originalTerm.getId() : null;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,247 @@
+package self.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import self.domain.FirestoreFutures;
+import self.domain.Term;
+import self.domain.TermBatchResult;
+import self.domain.TermImportResult;
+import self.domain.TermRepository;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * 사용자 약관 전체를 NDJSON(한 줄에 Term 하나)으로 내보내고 가져온다. (GET /terms/export, POST /terms/import)
+ *
+ * - 내보내기: 문서 ID 순으로 page-size 개씩 읽어 바로 쓰므로 약관 수와 관계없이 메모리는 한 페이지 분량만 쓴다.
+ *   끊기면 마지막으로 받은 줄의 id 를 after 로 넘겨 이어서 받는다
+ * - 가져오기: 500개 단위 batch 로 저장하되 동시에 커밋 중인 batch 를 max-in-flight 개로 제한한다 (그 이상이면 읽기를 멈추고 기다림).
+ *   batch 가 끝날 때마다 처리한 줄 수를 재개 토큰에 기록하므로, 끊긴 뒤 같은 파일과 토큰으로 다시 보내면 이어서 가져온다
+ * - 가져온 문서는 모두 요청한 사용자의 것으로 저장하고, id 가 다른 사용자의 문서와 겹치면 그 줄은 실패로 처리한다
+ * - 버전 체인 필드(groupId, origin, latest, version, versionNumber)는 파일 값을 쓰지 않는다.
+ *   새 문서는 각각 v1 루트가 되고, 이미 있는 문서는 저장된 값을 유지한다
+ * - 이미 있는 문서의 content 는 바꿀 수 없다 (다른 버전이 그 content 를 base 로 한 delta 로 저장되어 있을 수 있음).
+ *   content 가 다른 줄은 실패로 처리하고, 수정은 새 버전으로 저장해야 한다
+ */
+@Service
+public class TermTransferService {
+
+    private static final int IMPORT_BATCH_SIZE = 500;
+    private static final int MAX_REPORTED_FAILURES = 100;
+
+    @Autowired
+    private TermRepository termRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TermDiffService termDiffService;
+
+    @Value("${term.transfer.export-page-size:200}")
+    private int exportPageSize;
+
+    @Value("${term.transfer.import-max-in-flight:4}")
+    private int importMaxInFlight;
+
+    /**
+     * after 다음 문서부터 내보낸 개수. Firestore 오류는 IOException 으로 바꿔 던진다 (이미 쓴 줄은 그대로 유효).
+     */
+    public long exportTerms(String userId, String after, OutputStream out) throws IOException {
+        long exported = 0;
+        String last = after;
+        while (true) {
+            List<Term> page;
+            try {
+                page = FirestoreFutures.await(termRepository.findByUserIdAfterAsync(userId, last, exportPageSize));
+            } catch (ExecutionException e) {
+                throw new IOException("Export interrupted after term " + last, e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Export interrupted after term " + last, e);
+            }
+            for (Term term : page) {
+                out.write(objectMapper.writeValueAsBytes(term));
+                out.write('\n');
+            }
+            out.flush();
+            exported += page.size();
+            if (page.size() < exportPageSize) {
+                return exported;
+            }
+            last = page.get(page.size() - 1).getId();
+        }
+    }
+
+    public TermImportResult importTerms(String userId, InputStream in, String resumeToken)
+            throws IOException, ExecutionException, InterruptedException {
+        String token = resumeToken == null || resumeToken.isEmpty() ? UUID.randomUUID().toString() : resumeToken;
+        long skip = FirestoreFutures.await(termRepository.findImportProgressAsync(token, userId));
+
+        TermImportResult result = new TermImportResult();
+        result.setResumeToken(token);
+        Deque<PendingBatch> inFlight = new ArrayDeque<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        List<Term> batch = new ArrayList<>();
+        long lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (lineNumber <= skip) {
+                result.setSkippedLines(result.getSkippedLines() + 1);
+                continue;
+            }
+            if (line.isBlank()) {
+                continue;
+            }
+            Term term;
+            try {
+                term = objectMapper.readValue(line, Term.class);
+            } catch (JsonProcessingException e) {
+                fail(result, "line " + lineNumber, "Invalid JSON: " + e.getOriginalMessage());
+                continue;
+            }
+            term.setUserId(userId);
+            // createdAt 이 없으면 목록 페이지(createdAt 정렬)에 나오지 않는다
+            if (term.getCreatedAt() == null) {
+                term.setCreatedAt(new Date());
+            }
+            batch.add(term);
+            if (batch.size() == IMPORT_BATCH_SIZE) {
+                submit(userId, batch, lineNumber, inFlight, result, token);
+                batch = new ArrayList<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            submit(userId, batch, lineNumber, inFlight, result, token);
+        }
+        while (!inFlight.isEmpty()) {
+            completeOldest(userId, inFlight, result, token);
+        }
+        result.setProcessedLines(lineNumber);
+        FirestoreFutures.await(termRepository.saveImportProgressAsync(token, userId, lineNumber));
+        return result;
+    }
+
+    // 커밋 중인 batch 가 가득 찼으면 가장 오래된 것이 끝날 때까지 기다린 뒤(읽기를 멈춤) 새 batch 를 보낸다
+    private void submit(String userId, List<Term> terms, long lastLine, Deque<PendingBatch> inFlight,
+                        TermImportResult result, String token) throws ExecutionException, InterruptedException {
+        while (inFlight.size() >= importMaxInFlight) {
+            completeOldest(userId, inFlight, result, token);
+        }
+        List<String> existingIds = new ArrayList<>();
+        for (Term term : terms) {
+            if (term.getId() != null && !term.getId().isEmpty()) {
+                existingIds.add(term.getId());
+            }
+        }
+        CompletableFuture<BatchOutcome> outcome = termRepository.findAllByIdAsync(existingIds).thenCompose(stored -> {
+            List<Term> allowed = new ArrayList<>();
+            List<String> overwritten = new ArrayList<>();
+            BatchOutcome rejected = new BatchOutcome();
+            for (Term term : terms) {
+                Term existing = term.getId() == null ? null : stored.get(term.getId());
+                if (existing != null && !userId.equals(existing.getUserId())) {
+                    rejected.failures.put(term.getId(), "Term belongs to another user.");
+                    continue;
+                }
+                if (existing != null && !Objects.equals(term.getContent(), existing.getContent())) {
+                    rejected.failures.put(term.getId(), "Content of an existing term cannot be changed by import.");
+                    continue;
+                }
+                if (existing != null) {
+                    keepChain(term, existing);
+                    overwritten.add(term.getId());
+                } else {
+                    newChain(term);
+                }
+                allowed.add(term);
+            }
+            return termRepository.saveAllAsync(allowed).thenApply(saved -> {
+                termDiffService.evict(overwritten);
+                rejected.saved = saved;
+                return rejected;
+            });
+        });
+        inFlight.addLast(new PendingBatch(outcome, lastLine));
+    }
+
+    // 파일의 groupId, origin, latest, version, versionNumber 는 믿지 않는다. 다른 사용자의 체인에 붙거나 카운터와 어긋나지 않도록
+    // 새 문서는 그 자체로 체인의 루트(v1)로 저장한다
+    private void newChain(Term term) {
+        if (term.getId() == null || term.getId().isEmpty()) {
+            term.setId(termRepository.newId());
+        }
+        term.setGroupId(term.getId());
+        term.setOrigin(null);
+        term.setLatest(true);
+        term.setVersion("v1");
+        term.setVersionNumber(1L);
+    }
+
+    // 이미 있는 문서를 덮어쓸 때는 저장된 체인 필드를 그대로 둔다
+    private static void keepChain(Term term, Term existing) {
+        term.setGroupId(existing.getGroupId());
+        term.setOrigin(existing.getOrigin());
+        term.setLatest(existing.getLatest());
+        term.setVersion(existing.getVersion());
+        term.setVersionNumber(existing.getVersionNumber());
+    }
+
+    // 순서대로 끝난 batch 까지만 진행 상황으로 기록한다 (그래야 재개 시 빠지는 줄이 없다)
+    private void completeOldest(String userId, Deque<PendingBatch> inFlight, TermImportResult result, String token)
+            throws ExecutionException, InterruptedException {
+        PendingBatch pending = inFlight.pollFirst();
+        BatchOutcome outcome = FirestoreFutures.await(pending.outcome);
+        TermBatchResult saved = outcome.saved;
+        result.setImported(result.getImported() + saved.getSucceeded().size());
+        for (Map.Entry<String, String> failure : saved.getFailures().entrySet()) {
+            fail(result, failure.getKey(), failure.getValue());
+        }
+        for (Map.Entry<String, String> failure : outcome.failures.entrySet()) {
+            fail(result, failure.getKey(), failure.getValue());
+        }
+        FirestoreFutures.await(termRepository.saveImportProgressAsync(token, userId, pending.lastLine));
+    }
+
+    private static void fail(TermImportResult result, String key, String reason) {
+        result.setFailed(result.getFailed() + 1);
+        if (result.getFailures().size() < MAX_REPORTED_FAILURES) {
+            result.getFailures().put(key, reason);
+        }
+    }
+
+    private static class PendingBatch {
+        private final CompletableFuture<BatchOutcome> outcome;
+        private final long lastLine;
+
+        PendingBatch(CompletableFuture<BatchOutcome> outcome, long lastLine) {
+            this.outcome = outcome;
+            this.lastLine = lastLine;
+        }
+    }
+
+    private static class BatchOutcome {
+        private TermBatchResult saved;
+        private final Map<String, String> failures = new LinkedHashMap<>();
+    }
+}